@@ -0,0 +1,145 @@
+package com.example.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Smoke test and load drivers for the two services.
+ * <pre>
+ *   java -cp benchmarks/target/benchmarks.jar com.example.benchmarks.ApiTester              # smoke test
+ *   java -cp benchmarks/target/benchmarks.jar com.example.benchmarks.ApiTester bench ...    # closed-loop throughput
+ *   java -cp benchmarks/target/benchmarks.jar com.example.benchmarks.ApiTester load ...     # open-loop latency, see LoadGenerator
+ *   java -cp benchmarks/target/benchmarks.jar com.example.benchmarks.ApiTester compare ...  # MVC vs reactive reads, see StackComparison
+ * </pre>
+ */
+public class ApiTester {
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    public static void main(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("bench")) {
+                runBenchmark(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("load")) {
+                LoadGenerator.fromArgs(Arrays.copyOfRange(args, 1, args.length)).run();
+                return;
+            }
+            if (args.length > 0 && args[0].equals("compare")) {
+                StackComparison.fromArgs(Arrays.copyOfRange(args, 1, args.length)).run();
+                return;
+            }
+
+            System.out.println("--- Starting API Tests ---");
+
+            // 1. Create Supplier
+            System.out.println("\n1. Creating Supplier...");
+            String supplierJson = "{\"name\":\"TechParts Inc.\", \"contactPerson\":\"Alice Smith\", \"phone\":\"555-0100\", \"email\":\"alice@techparts.com\"}";
+            sendPost("http://localhost:8082/api/suppliers", supplierJson);
+
+            // 2. Create Product
+            System.out.println("\n2. Creating Product (linked to Supplier 1)...");
+            String productJson = "{\"name\":\"Laptop Screen\", \"description\":\"15 inch display\", \"price\":120.50, \"quantityInStock\":50, \"supplierId\":1}";
+            sendPost("http://localhost:8081/api/products", productJson);
+
+            // 3. Get Product Details (Inter-service communication)
+            System.out.println("\n3. Fetching Product Details (checking Supplier info)...");
+            sendGet("http://localhost:8081/api/products/1/supplier");
+
+            // 4. Decrease Stock
+            System.out.println("\n4. Decreasing Stock (Sale of 5 items)...");
+            String stockJson = "{\"amount\":5}";
+            sendPost("http://localhost:8081/api/products/1/decreaseStock", stockJson);
+
+            // 5. Verify Stock Level after Sale
+            System.out.println("\n5. Verifying Stock Level after Sale...");
+            sendGet("http://localhost:8081/api/products/1");
+
+            // 6. Increase Stock (Restock)
+            System.out.println("\n6. Increasing Stock (Restock of 20 items)...");
+            String restockJson = "{\"amount\":20}";
+            sendPost("http://localhost:8081/api/products/1/increaseStock", restockJson);
+
+            // 7. Verify Final Stock Level
+            System.out.println("\n7. Verifying Final Stock Level after Restock...");
+            sendGet("http://localhost:8081/api/products/1");
+
+            System.out.println("\n--- Tests Completed ---");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void sendPost(String url, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        System.out.println("Status: " + response.statusCode());
+        System.out.println("Response: " + response.body());
+    }
+
+    private static void sendGet(String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        System.out.println("Status: " + response.statusCode());
+        System.out.println("Response: " + response.body());
+    }
+
+    // Closed-loop throughput benchmark: each client is a virtual thread issuing GETs back to back.
+    // Usage: ApiTester bench [url] [seconds per level] [clients...]
+    // Run it once against each service mode (default and --spring.profiles.active=virtual-threads) to compare.
+    private static void runBenchmark(String[] args) throws InterruptedException {
+        String url = args.length > 1 ? args[1] : "http://localhost:8081/api/products/1/supplier";
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int[] clientLevels = args.length > 3
+                ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1000, 5000, 10000};
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+
+        System.out.println("--- Benchmarking GET " + url + " for " + seconds + "s per level ---");
+        for (int clients : clientLevels) {
+            AtomicLong succeeded = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    executor.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            try {
+                                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                                (response.statusCode() < 400 ? succeeded : failed).incrementAndGet();
+                            } catch (Exception e) {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    });
+                }
+            }
+            System.out.printf("clients=%d  throughput=%.0f req/s  succeeded=%d  failed=%d%n",
+                    clients, succeeded.get() / (double) seconds, succeeded.get(), failed.get());
+        }
+    }
+}
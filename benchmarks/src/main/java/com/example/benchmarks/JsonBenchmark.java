@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import com.example.inventory.Product;
+import com.example.inventory.SupplierDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Jackson (de)serialization with the same mapper configuration Spring MVC and WebClient use
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectWriter productWriter;
+    private ObjectReader productReader;
+    private ObjectWriter supplierWriter;
+    private ObjectReader supplierReader;
+
+    private Product product;
+    private SupplierDTO supplier;
+    private byte[] productJson;
+    private byte[] supplierJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        productWriter = objectMapper.writerFor(Product.class);
+        productReader = objectMapper.readerFor(Product.class);
+        supplierWriter = objectMapper.writerFor(SupplierDTO.class);
+        supplierReader = objectMapper.readerFor(SupplierDTO.class);
+
+        product = new Product("Benchmark Product", "A product used to measure serialization", 19.99, 250, 7L);
+        product.setId(42L);
+        supplier = new SupplierDTO();
+        supplier.setId(7L);
+        supplier.setName("TechParts Inc.");
+        supplier.setContactPerson("Alice Smith");
+        supplier.setPhone("555-0100");
+        supplier.setEmail("alice@techparts.com");
+        productJson = productWriter.writeValueAsBytes(product);
+        supplierJson = supplierWriter.writeValueAsBytes(supplier);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return productWriter.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public Product deserializeProduct() throws Exception {
+        return productReader.readValue(productJson);
+    }
+
+    @Benchmark
+    public byte[] serializeSupplier() throws Exception {
+        return supplierWriter.writeValueAsBytes(supplier);
+    }
+
+    @Benchmark
+    public SupplierDTO deserializeSupplier() throws Exception {
+        return supplierReader.readValue(supplierJson);
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.benchmarks;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-loop load driver: requests are issued on a fixed schedule at {@code rate} per second, each on its own
+ * virtual thread, whether or not earlier requests have completed. Latency is measured from the time a request was
+ * scheduled to start, not from when it was actually sent, so a stalled service shows up in the percentiles instead of
+ * silently lowering the offered load (coordinated omission).
+ * <p>
+ * Options are {@code key=value} pairs; defaults in brackets:
+ * <pre>
+ *   rate=500                requests per second across all operations
+ *   duration=60             measured seconds
+ *   warmup=10               seconds of load before recording starts
+ *   mix=read:50,supplier-lookup:20,decrease:10,increase:10,create:5,supplier-read:5
+ *   products=100            products (with ample stock) seeded before the run and targeted by the mix
+ *   inventory=http://localhost:8081
+ *   supplier=http://localhost:8082
+ *   timeout=10              per-request timeout in seconds
+ *   hgrm=DIR                also write each operation's full percentile distribution to DIR/&lt;operation&gt;.hgrm
+ * </pre>
+ */
+class LoadGenerator {
+
+    enum Operation {
+        CREATE("create"),
+        READ("read"),
+        DECREASE("decrease"),
+        INCREASE("increase"),
+        SUPPLIER_LOOKUP("supplier-lookup"),
+        SUPPLIER_READ("supplier-read");
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + key + "'");
+        }
+    }
+
+    // Microsecond values up to an hour, 3 significant digits
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofHours(1).toNanos() / 1000;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final int rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Map<Operation, Integer> mix;
+    private final int products;
+    private final String inventoryUrl;
+    private final String supplierUrl;
+    private final Duration timeout;
+    private final Path hgrmDirectory;
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong maxInFlight = new AtomicLong();
+    private final AtomicLong createdProducts = new AtomicLong();
+
+    private long supplierId;
+    private long[] productIds;
+    private Operation[] schedule;
+
+    LoadGenerator(int rate, Duration duration, Duration warmup, Map<Operation, Integer> mix, int products,
+                  String inventoryUrl, String supplierUrl, Duration timeout, Path hgrmDirectory) {
+        if (rate <= 0 || products <= 0 || mix.isEmpty()) {
+            throw new IllegalArgumentException("rate, products and mix must be positive");
+        }
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.mix = mix;
+        this.products = products;
+        this.inventoryUrl = inventoryUrl;
+        this.supplierUrl = supplierUrl;
+        this.timeout = timeout;
+        this.hgrmDirectory = hgrmDirectory;
+        for (Operation operation : mix.keySet()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    static LoadGenerator fromArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rate", "500");
+        options.put("duration", "60");
+        options.put("warmup", "10");
+        options.put("mix", "read:50,supplier-lookup:20,decrease:10,increase:10,create:5,supplier-read:5");
+        options.put("products", "100");
+        options.put("inventory", "http://localhost:8081");
+        options.put("supplier", "http://localhost:8082");
+        options.put("timeout", "10");
+        options.put("hgrm", null);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0 || !options.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Unknown option '" + arg + "', expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new LoadGenerator(
+                Integer.parseInt(options.get("rate")),
+                Duration.ofSeconds(Long.parseLong(options.get("duration"))),
+                Duration.ofSeconds(Long.parseLong(options.get("warmup"))),
+                parseMix(options.get("mix")),
+                Integer.parseInt(options.get("products")),
+                options.get("inventory"),
+                options.get("supplier"),
+                Duration.ofSeconds(Long.parseLong(options.get("timeout"))),
+                options.get("hgrm") == null ? null : Path.of(options.get("hgrm")));
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            if (weight > 0) {
+                weights.put(Operation.of(parts[0]), weight);
+            }
+        }
+        return weights;
+    }
+
+    void run() throws Exception {
+        seed();
+        schedule = buildSchedule();
+
+        long intervalNanos = 1_000_000_000L / rate;
+        long warmupRequests = warmup.toSeconds() * rate;
+        long totalRequests = warmupRequests + duration.toSeconds() * rate;
+        System.out.printf("--- Open-loop load: %d req/s for %ds (+%ds warmup), mix %s ---%n",
+                rate, duration.toSeconds(), warmup.toSeconds(), describeMix());
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < totalRequests; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = schedule[(int) (i % schedule.length)];
+                boolean recorded = i >= warmupRequests;
+                executor.submit(() -> execute(operation, intendedStart, recorded));
+            }
+        }
+        double measuredSeconds = (System.nanoTime() - start) / 1e9 - warmup.toSeconds();
+        report(measuredSeconds);
+    }
+
+    // Creates one supplier and the product pool the mix operates on
+    private void seed() throws Exception {
+        String supplier = "{\"name\":\"Load Supplier " + System.currentTimeMillis() + "\",\"contactPerson\":\"Load Test\","
+                + "\"phone\":\"555-0100\",\"email\":\"load" + System.currentTimeMillis() + "@example.com\"}";
+        supplierId = idOf(send(post(supplierUrl + "/api/suppliers", supplier)));
+        productIds = new long[products];
+        for (int i = 0; i < products; i++) {
+            productIds[i] = idOf(send(post(inventoryUrl + "/api/products", productJson("Load Product " + i))));
+        }
+        System.out.printf("Seeded supplier %d and %d products%n", supplierId, products);
+    }
+
+    // Operations laid out in proportion to their weights and shuffled, so every second of load has the same mix
+    private Operation[] buildSchedule() {
+        List<Operation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        Collections.shuffle(operations, ThreadLocalRandom.current());
+        return operations.toArray(new Operation[0]);
+    }
+
+    private String describeMix() {
+        StringBuilder description = new StringBuilder();
+        mix.forEach((operation, weight) -> description.append(description.isEmpty() ? "" : ",").append(operation.key).append(':').append(weight));
+        return description.toString();
+    }
+
+    private void execute(Operation operation, long intendedStart, boolean recorded) {
+        long current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        boolean failed;
+        try {
+            failed = send(request(operation)).statusCode() >= 400;
+        } catch (Exception e) {
+            failed = true;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (recorded) {
+            long latencyMicros = (System.nanoTime() - intendedStart) / 1000;
+            histograms.get(operation).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            if (failed) {
+                errors.get(operation).incrementAndGet();
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation) {
+        long productId = productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        String product = inventoryUrl + "/api/products/" + productId;
+        return switch (operation) {
+            case CREATE -> post(inventoryUrl + "/api/products",
+                    productJson("Load Product " + System.nanoTime() + "-" + createdProducts.incrementAndGet()));
+            case READ -> get(product);
+            case DECREASE -> post(product + "/decreaseStock", "{\"amount\":1}");
+            case INCREASE -> post(product + "/increaseStock", "{\"amount\":1}");
+            case SUPPLIER_LOOKUP -> get(product + "/supplier");
+            case SUPPLIER_READ -> get(supplierUrl + "/api/suppliers/" + supplierId);
+        };
+    }
+
+    private void report(double measuredSeconds) throws IOException {
+        System.out.printf("%n%-16s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            System.out.printf("%-16s %9d %7d %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey().key, histogram.getTotalCount(), errors.get(entry.getKey()).get(),
+                    histogram.getTotalCount() / measuredSeconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+            if (hgrmDirectory != null) {
+                Files.createDirectories(hgrmDirectory);
+                try (PrintStream out = new PrintStream(new FileOutputStream(hgrmDirectory.resolve(entry.getKey().key + ".hgrm").toFile()))) {
+                    histogram.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+        System.out.printf("%nmax in-flight requests: %d%n", maxInFlight.get());
+    }
+
+    private String productJson(String name) {
+        return "{\"name\":\"" + name + "\",\"description\":\"Load test product\",\"price\":9.99,"
+                + "\"quantityInStock\":1000000000,\"supplierId\":" + supplierId + "}";
+    }
+
+    private HttpRequest get(String url) {
+        return HttpRequest.newBuilder().uri(URI.create(url)).timeout(timeout).GET().build();
+    }
+
+    private HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long idOf(HttpResponse<String> response) {
+        Matcher matcher = ID.matcher(response.body());
+        if (response.statusCode() >= 400 || !matcher.find()) {
+            throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import com.example.inventory.InventoryApplication;
+import com.example.inventory.InventoryService;
+import com.example.inventory.Product;
+import com.example.inventory.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository and stock-mutation paths of inventory-service against an embedded H2 database, with the application's
+ * own JPA, second-level cache and transaction configuration. H2 numbers are a regression signal, not a forecast of
+ * PostgreSQL latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductRepositoryBenchmark {
+
+    @Param({"10000"})
+    public int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private InventoryService inventoryService;
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(InventoryApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // Command-line arguments, so they take precedence over the service's application.properties
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:inventory_bench;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                // No supplier-service in the benchmark; keep the change-feed poller quiet
+                "--supplier.changes.poll-interval=PT24H",
+                "--logging.level.root=WARN");
+        productRepository = context.getBean(ProductRepository.class);
+        inventoryService = context.getBean(InventoryService.class);
+
+        List<Product> seed = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            seed.add(new Product("Product " + i, "Benchmark product " + i, 10.0 + i, 1_000_000, (long) (i % 100) + 1));
+        }
+        firstId = productRepository.saveAll(seed).get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // Served from the second-level cache once warm
+    @Benchmark
+    public Product findById() {
+        return productRepository.findById(randomId()).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Product> keysetPage() {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(randomId(), Limit.of(100));
+    }
+
+    // Conditional UPDATE plus cache invalidation and re-read, in its own transaction
+    @Benchmark
+    @Threads(4)
+    public Product decreaseStock() {
+        return inventoryService.decreaseStock(randomId(), 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Product increaseStock() {
+        return inventoryService.increaseStock(randomId(), 1);
+    }
+
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(products);
+    }
+}
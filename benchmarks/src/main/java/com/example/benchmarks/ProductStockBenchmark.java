@@ -0,0 +1,49 @@
+package com.example.benchmarks;
+
+import com.example.inventory.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// In-memory stock arithmetic on the entity, as used by the batch movement path
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductStockBenchmark {
+
+    private Product product;
+    private Product soldOut;
+
+    @Setup
+    public void setUp() {
+        product = new Product("Benchmark Product", "Desc", 10.0, 1_000, 1L);
+        soldOut = new Product("Sold Out Product", "Desc", 10.0, 0, 1L);
+    }
+
+    // Paired so the stock level stays constant however many invocations an iteration runs
+    @Benchmark
+    public int decreaseThenIncreaseStock() {
+        product.decreaseStock(1);
+        product.increaseStock(1);
+        return product.getQuantityInStock();
+    }
+
+    @Benchmark
+    public int availableQuantity() {
+        return product.getAvailableQuantity();
+    }
+
+    // Rejection path: the cost of building and throwing the insufficient-stock exception
+    @Benchmark
+    public Object decreaseStockInsufficient() {
+        try {
+            soldOut.decreaseStock(1);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.benchmarks;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Side-by-side closed-loop comparison of the MVC read endpoints and the reactive read path (inventory-service started
+ * with {@code --inventory.reactive.enabled=true}). For every path and concurrency level the MVC stack and the reactive
+ * stack are driven in turn with the same number of clients, each a virtual thread issuing GETs back to back, and
+ * throughput and latency percentiles are reported for both.
+ * <p>
+ * Options are {@code key=value} pairs; defaults in brackets:
+ * <pre>
+ *   mvc=http://localhost:8081        MVC endpoints (server.port)
+ *   reactive=http://localhost:8091   reactive endpoints (inventory.reactive.port)
+ *   paths=/api/products?limit=20,/api/products/1,/api/products/1/supplier
+ *   clients=256,1024,4096            concurrency levels
+ *   duration=20                      measured seconds per stack and level
+ *   warmup=5                         seconds of load before each measurement
+ *   timeout=10                       per-request timeout in seconds
+ * </pre>
+ */
+class StackComparison {
+
+    // Microsecond values up to an hour, 3 significant digits
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofHours(1).toNanos() / 1000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<String, String> stacks;
+    private final List<String> paths;
+    private final int[] clientLevels;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration timeout;
+
+    StackComparison(String mvcUrl, String reactiveUrl, List<String> paths, int[] clientLevels,
+                    Duration duration, Duration warmup, Duration timeout) {
+        if (paths.isEmpty() || clientLevels.length == 0) {
+            throw new IllegalArgumentException("paths and clients must not be empty");
+        }
+        this.stacks = new LinkedHashMap<>();
+        stacks.put("mvc", mvcUrl);
+        stacks.put("reactive", reactiveUrl);
+        this.paths = paths;
+        this.clientLevels = clientLevels;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.timeout = timeout;
+    }
+
+    static StackComparison fromArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("mvc", "http://localhost:8081");
+        options.put("reactive", "http://localhost:8091");
+        options.put("paths", "/api/products?limit=20,/api/products/1,/api/products/1/supplier");
+        options.put("clients", "256,1024,4096");
+        options.put("duration", "20");
+        options.put("warmup", "5");
+        options.put("timeout", "10");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0 || !options.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Unknown option '" + arg + "', expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new StackComparison(
+                options.get("mvc"),
+                options.get("reactive"),
+                Arrays.stream(options.get("paths").split(",")).map(String::trim).filter(path -> !path.isEmpty()).toList(),
+                Arrays.stream(options.get("clients").split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray(),
+                Duration.ofSeconds(Long.parseLong(options.get("duration"))),
+                Duration.ofSeconds(Long.parseLong(options.get("warmup"))),
+                Duration.ofSeconds(Long.parseLong(options.get("timeout"))));
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("--- MVC vs reactive: %ds per stack and level (+%ds warmup), clients %s ---%n",
+                duration.toSeconds(), warmup.toSeconds(), Arrays.toString(clientLevels));
+        System.out.printf("%n%-32s %8s %-9s %9s %7s %9s %9s %9s %9s%n",
+                "path", "clients", "stack", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (String path : paths) {
+            for (int clients : clientLevels) {
+                // Alternate the stacks at each level, so that both see the same database and supplier cache state
+                for (Map.Entry<String, String> stack : stacks.entrySet()) {
+                    measure(path, clients, stack.getKey(), stack.getValue());
+                }
+            }
+        }
+    }
+
+    private void measure(String path, int clients, String stack, String baseUrl) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET()
+                .build();
+        Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long deadline = recordFrom + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    long sent;
+                    while ((sent = System.nanoTime()) < deadline) {
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (sent >= recordFrom) {
+                            histogram.recordValue(Math.min((System.nanoTime() - sent) / 1000, HIGHEST_TRACKABLE_MICROS));
+                            (ok ? succeeded : failed).incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        System.out.printf("%-32s %8d %-9s %9.0f %7d %9.2f %9.2f %9.2f %9.2f%n",
+                path, clients, stack, succeeded.get() / (double) duration.toSeconds(), failed.get(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.benchmarks;
+
+import com.example.inventory.SupplierCache;
+import com.example.inventory.SupplierClient;
+import com.example.inventory.SupplierDTO;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Supplier lookups through the real SupplierCache and SupplierClient (WebClient, retry, circuit breaker), loaded the
+ * way InventoryService.getSupplierDetails loads them, against a local stub of supplier-service. The numbers cover the
+ * client stack but not the network or the supplier database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SupplierLookupBenchmark {
+
+    private static final long SUPPLIER_ID = 1L;
+
+    @Param({"100"})
+    public int bulkSize;
+
+    private HttpServer server;
+    private SupplierCache supplierCache;
+    private SupplierClient supplierClient;
+    private List<Long> bulkIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Without TCP_NODELAY the stub's small responses wait on delayed ACKs and every call measures ~40ms of nothing
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/suppliers", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            byte[] body = (query != null ? suppliersJson(query) : supplierJson(SUPPLIER_ID)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebClient webClient = WebClient.create("http://localhost:" + server.getAddress().getPort() + "/api/suppliers");
+        supplierClient = new SupplierClient(webClient, CircuitBreaker.ofDefaults("supplier-service"),
+                Duration.ofSeconds(1), Duration.ofSeconds(3), 2, Duration.ofMillis(100), 10_000, meterRegistry);
+        supplierCache = new SupplierCache(10_000, Duration.ofHours(12), Duration.ofSeconds(30));
+        bulkIds = LongStream.rangeClosed(1, bulkSize).boxed().toList();
+        lookup().orElseThrow();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Optional<SupplierDTO> cachedLookup() {
+        return lookup();
+    }
+
+    @Benchmark
+    public Optional<SupplierDTO> uncachedLookup() {
+        supplierCache.evict(SUPPLIER_ID);
+        return lookup();
+    }
+
+    // One bulk request for bulkSize suppliers, as used when rendering a page of products
+    @Benchmark
+    public Map<Long, Optional<SupplierDTO>> uncachedBulkLookup() {
+        supplierCache.evictAll();
+        return supplierCache.getAll(bulkIds, this::fetchSuppliers);
+    }
+
+    private Optional<SupplierDTO> lookup() {
+        return supplierCache.get(SUPPLIER_ID, id -> supplierClient.getSupplier(id).blockOptional());
+    }
+
+    private Map<Long, Optional<SupplierDTO>> fetchSuppliers(Set<Long> supplierIds) {
+        Map<Long, Optional<SupplierDTO>> suppliers = new HashMap<>();
+        supplierIds.forEach(id -> suppliers.put(id, Optional.empty()));
+        supplierClient.getSuppliers(supplierIds).blockOptional()
+                .ifPresent(found -> found.forEach(supplier -> suppliers.put(supplier.getId(), Optional.of(supplier))));
+        return suppliers;
+    }
+
+    private static String suppliersJson(String query) {
+        return Arrays.stream(query.split("&"))
+                .filter(param -> param.startsWith("ids="))
+                .flatMap(param -> Arrays.stream(param.substring(4).split(",")))
+                .map(id -> supplierJson(Long.parseLong(id)))
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String supplierJson(long id) {
+        return "{\"id\":" + id + ",\"name\":\"Supplier " + id + "\",\"contactPerson\":\"Alice Smith\","
+                + "\"phone\":\"555-0100\",\"email\":\"supplier" + id + "@example.com\"}";
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.inventory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cluster mode: hands stock writes for hot products to the replica that owns them. Only single-product writes are
+ * forwarded; anything else touching another replica's hot product is answered with 421 Misdirected Request and the
+ * owner's address, so the client can send it there.
+ */
+@Component
+public class ClusterClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterClient.class);
+
+    // Marks a forwarded request, so that it is never forwarded a second time
+    static final String FORWARDED_HEADER = "X-Inventory-Forwarded";
+    static final String OWNER_HEADER = "X-Inventory-Owner";
+    // Fingerprint of the client's request, sent along with its Idempotency-Key so that the owner stores the key
+    // under the fingerprint a retry of the original request will have
+    static final String FINGERPRINT_HEADER = "X-Inventory-Idempotency-Fingerprint";
+    // 421 Misdirected Request, which HttpStatus does not define
+    static final int MISDIRECTED_REQUEST = 421;
+
+    private final ClusterCoordinator coordinator;
+    private final IdempotencyStore idempotencyStore;
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    @Autowired
+    public ClusterClient(ClusterCoordinator coordinator, IdempotencyStore idempotencyStore, WebClient.Builder webClientBuilder,
+                         @Value("${inventory.cluster.forward-timeout:PT2S}") Duration timeout) {
+        this.coordinator = coordinator;
+        this.idempotencyStore = idempotencyStore;
+        this.webClient = webClientBuilder.build();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends the stock change to the product's owner and returns its response. While ownership is moving (the owner
+     * is this replica but has not claimed the shard yet, or the request was already forwarded once), or when the owner
+     * cannot be reached, the answer is 503 with Retry-After.
+     * <p>
+     * The request's Idempotency-Key goes to the owner with it: this replica releases its claim first, and the owner
+     * claims the key in the shared store and keeps the response. If the owner does not answer within
+     * {@code forward-timeout} the change may or may not have been made, and the answer is 504; a retry with the same
+     * key then gets 409 while the owner is still at it, and its response once it is done.
+     */
+    public ResponseEntity<Product> forwardStockChange(StockOwnedElsewhereException e, String operation, Map<String, Integer> payload,
+                                                      String location, boolean forwarded, HttpServletRequest request) {
+        Optional<String> owner = coordinator.ownerUrl(e.getProductId());
+        if (forwarded || owner.isEmpty() || owner.get().equals(coordinator.getBaseUrl())) {
+            return retryLater();
+        }
+        String uri = UriComponentsBuilder.fromHttpUrl(owner.get())
+                .path("/api/products/{productId}/{operation}")
+                .queryParamIfPresent("location", Optional.ofNullable(location))
+                .buildAndExpand(e.getProductId(), operation)
+                .toUriString();
+        WebClient.RequestBodySpec forward = webClient.post().uri(uri).header(FORWARDED_HEADER, "true");
+        IdempotencyFilter.ClaimedKey claimed = (IdempotencyFilter.ClaimedKey) request.getAttribute(IdempotencyFilter.CLAIM_ATTRIBUTE);
+        if (claimed != null) {
+            // Still held here, the claim would turn the owner away as a retry already in progress
+            claimed.handOver();
+            idempotencyStore.release(claimed.getKey());
+            forward.header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, claimed.getKey())
+                    .header(FINGERPRINT_HEADER, claimed.getFingerprint());
+        }
+        try {
+            ResponseEntity<Product> response = forward
+                    .bodyValue(payload)
+                    .exchangeToMono(ownerResponse -> ownerResponse.toEntity(Product.class))
+                    .block(timeout);
+            return response == null ? outcomeUnknown() : ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        } catch (RuntimeException failure) {
+            log.warn("Could not forward {} of product {} to {}: {}", operation, e.getProductId(), owner.get(), failure.toString());
+            // A refused connection never reached the owner; after anything else the change may have been made there
+            return NestedExceptionUtils.getMostSpecificCause(failure) instanceof ConnectException ? retryLater() : outcomeUnknown();
+        }
+    }
+
+    public ResponseEntity<String> misdirected(StockOwnedElsewhereException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(MISDIRECTED_REQUEST);
+        coordinator.ownerUrl(e.getProductId()).ifPresent(owner -> response.header(OWNER_HEADER, owner));
+        return response.body(e.getMessage());
+    }
+
+    private static <T> ResponseEntity<T> outcomeUnknown() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+    }
+
+    private static <T> ResponseEntity<T> retryLater() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.inventory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Cluster mode, for running several inventory-service replicas against one database. Replicas find each other
+ * through heartbeats in the cluster_members table, and products are hashed onto a fixed number of shards that are
+ * spread over the live replicas with a {@link ConsistentHashRing}. The owner of a shard is the only replica that keeps
+ * write-behind counters for the hot products in it, and other replicas forward single-product stock writes for those
+ * products to it.
+ * <p>
+ * Ownership is a lease in the stock_shards table, renewed on every heartbeat. A replica stops selling from memory as
+ * soon as its lease may have lapsed, which is a safety margin before another replica can take the shard over; a shard
+ * that moves on a membership change is flushed and released by its old owner before the new one can claim it.
+ * Clocks of the replicas must agree to well within that margin. Stock of products that are not hot is only ever
+ * changed by conditional UPDATEs in the database, so any replica can serve it.
+ * <p>
+ * Cluster mode requires the database idempotency store: see {@link ClusterClient#forwardStockChange}.
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private final HotStockAggregator hotStock;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String instanceId;
+    private final String advertisedHost;
+    private final int shards;
+    private final int virtualNodes;
+    private final Duration leaseDuration;
+
+    private final Set<Integer> ownedShards = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, String> memberUrls = Map.of();
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(Set.of(), 0);
+    // System.nanoTime() until which the leases in ownedShards are certainly still held
+    private volatile long leaseDeadline;
+    private volatile String baseUrl;
+
+    @Autowired
+    public ClusterCoordinator(HotStockAggregator hotStock, ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                              @Value("${inventory.cluster.enabled:false}") boolean enabled,
+                              @Value("${inventory.cluster.instance-id:}") String instanceId,
+                              @Value("${inventory.cluster.advertised-host:}") String advertisedHost,
+                              @Value("${inventory.cluster.shards:256}") int shards,
+                              @Value("${inventory.cluster.virtual-nodes:64}") int virtualNodes,
+                              @Value("${inventory.cluster.lease-duration:PT10S}") Duration leaseDuration,
+                              @Value("${inventory.idempotency.store:memory}") String idempotencyStore) {
+        // A retry may reach another replica than the first attempt did, and a forwarded change is deduplicated by the
+        // owner, so Idempotency-Keys have to be shared by the whole cluster
+        if (enabled && !idempotencyStore.equals("database")) {
+            throw new IllegalArgumentException("inventory.cluster.enabled requires inventory.idempotency.store=database");
+        }
+        this.hotStock = hotStock;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        this.advertisedHost = advertisedHost;
+        this.shards = shards;
+        this.virtualNodes = virtualNodes;
+        this.leaseDuration = leaseDuration;
+        if (enabled) {
+            hotStock.useOwnership(this::holdsLease);
+        }
+    }
+
+    // Replicas reach each other on the port the web server actually bound, which may have been chosen at random
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) throws UnknownHostException {
+        // A separate management server has a namespace of its own; only the main one serves the API
+        if (!enabled || event.getApplicationContext().getServerNamespace() != null) {
+            return;
+        }
+        String host = advertisedHost.isBlank() ? InetAddress.getLocalHost().getHostAddress() : advertisedHost;
+        baseUrl = "http://" + host + ":" + event.getWebServer().getPort();
+        log.info("Joining the inventory cluster as {} at {}", instanceId, baseUrl);
+        heartbeat();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    // This replica's own address as advertised to the others; null until the web server has started
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    // Base URL of the replica that the ring assigns the product to; empty outside cluster mode or before joining
+    public Optional<String> ownerUrl(Long productId) {
+        return Optional.ofNullable(ring.ownerOf(shardKey(shardOf(productId)))).map(memberUrls::get);
+    }
+
+    int shardOf(Long productId) {
+        // Spread consecutive ids over the shards
+        return Math.floorMod(Long.hashCode(productId * 0x9E3779B97F4A7C15L), shards);
+    }
+
+    Set<Integer> getOwnedShards() {
+        return Set.copyOf(ownedShards);
+    }
+
+    /**
+     * Renews this replica's membership and leases, then moves shards to match the ring: shards that now belong to
+     * another replica are flushed and released, and shards that belong here are claimed once they are free.
+     */
+    @Scheduled(fixedDelayString = "${inventory.cluster.heartbeat-interval:PT2S}")
+    public synchronized void heartbeat() {
+        if (!enabled || baseUrl == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        Timestamp leaseEnd = Timestamp.from(now.plus(leaseDuration));
+        if (jdbcTemplate.update("UPDATE cluster_members SET base_url = ?, heartbeat_at = ? WHERE instance_id = ?",
+                baseUrl, Timestamp.from(now), instanceId) == 0) {
+            jdbcTemplate.update("INSERT INTO cluster_members (instance_id, base_url, heartbeat_at) VALUES (?, ?, ?)",
+                    instanceId, baseUrl, Timestamp.from(now));
+        }
+        Map<String, String> members = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT instance_id, base_url FROM cluster_members WHERE heartbeat_at > ? ORDER BY instance_id",
+                rs -> {
+                    members.put(rs.getString("instance_id"), rs.getString("base_url"));
+                }, Timestamp.from(now.minus(leaseDuration)));
+        ConsistentHashRing current = new ConsistentHashRing(members.keySet(), virtualNodes);
+        memberUrls = Map.copyOf(members);
+        ring = current;
+
+        // Stop selling from memory in shards that move away, write out what was sold, then let the new owner have them
+        Set<Integer> leaving = ownedShards.stream()
+                .filter(shard -> !instanceId.equals(current.ownerOf(shardKey(shard))))
+                .collect(Collectors.toSet());
+        if (!leaving.isEmpty()) {
+            ownedShards.removeAll(leaving);
+            hotStock.unregisterIf(productId -> leaving.contains(shardOf(productId)));
+            leaving.forEach(shard -> jdbcTemplate.update(
+                    "UPDATE stock_shards SET owner_id = NULL, lease_expires_at = NULL WHERE shard_id = ? AND owner_id = ?",
+                    shard, instanceId));
+            log.info("Released {} stock shards", leaving.size());
+        }
+
+        if (!ownedShards.isEmpty()) {
+            jdbcTemplate.update("UPDATE stock_shards SET lease_expires_at = ? WHERE owner_id = ?", leaseEnd, instanceId);
+            Set<Integer> held = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT shard_id FROM stock_shards WHERE owner_id = ?", Integer.class, instanceId));
+            if (!held.containsAll(ownedShards)) {
+                // Our lease lapsed and another replica took over; whatever is still pending here is flushed late
+                Set<Integer> lost = ownedShards.stream().filter(shard -> !held.contains(shard)).collect(Collectors.toSet());
+                ownedShards.removeAll(lost);
+                hotStock.unregisterIf(productId -> lost.contains(shardOf(productId)));
+                log.warn("Lost the lease on {} stock shards", lost.size());
+            }
+        }
+        // Safe until the lease could expire, less a margin for clock differences between replicas
+        leaseDeadline = started + leaseDuration.toNanos() * 3 / 4;
+
+        int claimed = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            if (!ownedShards.contains(shard) && instanceId.equals(current.ownerOf(shardKey(shard))) && claim(shard, now, leaseEnd)) {
+                ownedShards.add(shard);
+                claimed++;
+            }
+        }
+        if (claimed > 0) {
+            log.info("Claimed {} stock shards, now holding {} of {}", claimed, ownedShards.size(), shards);
+        }
+        productRepository.findHotProductIds().stream()
+                .filter(productId -> ownedShards.contains(shardOf(productId)))
+                .forEach(hotStock::register);
+    }
+
+    // Leaves the cluster cleanly, so that the other replicas can take the shards over straight away
+    @PreDestroy
+    public synchronized void leave() {
+        if (!enabled || baseUrl == null) {
+            return;
+        }
+        leaseDeadline = System.nanoTime();
+        hotStock.unregisterIf(productId -> true);
+        jdbcTemplate.update("UPDATE stock_shards SET owner_id = NULL, lease_expires_at = NULL WHERE owner_id = ?", instanceId);
+        jdbcTemplate.update("DELETE FROM cluster_members WHERE instance_id = ?", instanceId);
+        ownedShards.clear();
+        baseUrl = null;
+    }
+
+    private boolean holdsLease(Long productId) {
+        return ownedShards.contains(shardOf(productId)) && System.nanoTime() - leaseDeadline < 0;
+    }
+
+    private boolean claim(int shard, Instant now, Timestamp leaseEnd) {
+        if (jdbcTemplate.update("UPDATE stock_shards SET owner_id = ?, lease_expires_at = ? " +
+                        "WHERE shard_id = ? AND (owner_id IS NULL OR owner_id = ? OR lease_expires_at < ?)",
+                instanceId, leaseEnd, shard, instanceId, Timestamp.from(now)) == 1) {
+            return true;
+        }
+        // The shard has never been claimed; if another replica claims it first, the primary key turns this one down
+        try {
+            return jdbcTemplate.update("INSERT INTO stock_shards (shard_id, owner_id, lease_expires_at) VALUES (?, ?, ?)",
+                    shard, instanceId, leaseEnd) == 1;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private static String shardKey(int shard) {
+        return "shard-" + shard;
+    }
+}
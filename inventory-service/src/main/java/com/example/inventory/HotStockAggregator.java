@@ -0,0 +1,512 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind stock for products flagged as hot. Sales and restocks of a hot product are checked against an
+ * in-memory counter and recorded in a local {@link HotStockJournal} instead of each taking the product's row lock;
+ * the net delta is written in one UPDATE every {@code flush-interval}, or sooner once {@code flush-max-operations}
+ * have accumulated. On startup any journaled deltas that did not reach the database are replayed; each flush also
+ * records, per product and journal, the journal sequence it covers, so a replay never applies a delta twice.
+ * <p>
+ * The counter holds the product's available quantity as of the last flush plus the pending delta, so a sale is
+ * refused exactly when the database path would refuse it. Anything else that changes a hot product's stock
+ * (reservations, batches, quantity edits) must call {@link #lockForUpdate} inside its transaction first: that flushes
+ * the pending delta and holds off in-memory sales until the transaction completes and the counter is reloaded.
+ * That flush is part of the caller's transaction, on its connection: a rollback puts the delta back in the counter.
+ * <p>
+ * The counters live in this instance only, so every request for a hot product must be served by the same instance.
+ * In cluster mode {@link ClusterCoordinator} decides which instance that is: a counter is only kept, and only used,
+ * while this instance holds the lease on the product's shard. Elsewhere {@link #lockForUpdate} refuses to let a
+ * transaction change a hot product's row with a {@link StockOwnedElsewhereException}. A product is only taken over once
+ * the journal of its previous owner has no unflushed deltas for it: an owner that lost its lease flushes late, and one
+ * that crashed replays its journal when it restarts. Until then the new owner refuses to change its stock.
+ */
+@Component
+public class HotStockAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(HotStockAggregator.class);
+
+    public enum Outcome {
+        APPLIED,
+        INSUFFICIENT_STOCK,
+        // Not (or no longer) a hot product: use the database path
+        NOT_HOT,
+        // Cluster mode: a hot product whose shard lease this instance does not hold (any more)
+        NOT_OWNER
+    }
+
+    private static final class HotCounter {
+        // Shared by in-memory sales, exclusive for flushes and for transactions that change the row directly
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final AtomicLong available = new AtomicLong();
+        final AtomicLong pending = new AtomicLong();
+        final AtomicInteger operations = new AtomicInteger();
+        volatile boolean retired;
+    }
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Timer flushTimer;
+    private final Map<Long, HotCounter> counters = new ConcurrentHashMap<>();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-stock-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final boolean enabled;
+    private final boolean clustered;
+    // Whether this instance may hold a product's counter; in cluster mode nothing is owned until leases are taken
+    private volatile Predicate<Long> ownership;
+    private final Path journalDirectory;
+    private final boolean syncWrites;
+    private final int flushMaxOperations;
+    private HotStockJournal journal;
+
+    @Autowired
+    public HotStockAggregator(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${inventory.hot-stock.enabled:false}") boolean enabled,
+                              @Value("${inventory.hot-stock.journal-dir:hot-stock-journal}") Path journalDirectory,
+                              @Value("${inventory.hot-stock.journal-sync-writes:false}") boolean syncWrites,
+                              @Value("${inventory.hot-stock.flush-max-operations:1000}") int flushMaxOperations,
+                              @Value("${inventory.cluster.enabled:false}") boolean clustered) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Joins the caller's transaction, so a request never needs a second pooled connection
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.flushTimer = Timer.builder("inventory.hot.stock.flushes")
+                .description("Write-behind flushes of hot product stock")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("inventory.hot.stock.products", List.of(), counters);
+        this.enabled = enabled;
+        this.journalDirectory = journalDirectory;
+        this.syncWrites = syncWrites;
+        this.flushMaxOperations = flushMaxOperations;
+        this.clustered = clustered;
+        this.ownership = productId -> !clustered;
+    }
+
+    // Installed by the cluster coordinator; checked before every in-memory sale
+    void useOwnership(Predicate<Long> ownership) {
+        this.ownership = ownership;
+    }
+
+    /**
+     * Replays journaled deltas left by a previous run, starts a fresh journal and loads the hot products.
+     * Fails if the deltas cannot be written, leaving the journal as it is for the next attempt.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new HotStockJournal(journalDirectory, syncWrites);
+        String journalId = journal.getId();
+        List<HotStockJournal.Entry> entries = journal.replay();
+        long lastSequence = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(flushed_sequence), 0) FROM hot_stock_flushes WHERE journal_id = ?", Long.class, journalId);
+        Map<Long, List<HotStockJournal.Entry>> entriesByProduct = entries.stream()
+                .collect(Collectors.groupingBy(HotStockJournal.Entry::productId));
+        for (Map.Entry<Long, List<HotStockJournal.Entry>> productEntries : entriesByProduct.entrySet()) {
+            Long productId = productEntries.getKey();
+            long maxSequence = productEntries.getValue().stream().mapToLong(HotStockJournal.Entry::sequence).max().orElse(0);
+            lastSequence = Math.max(lastSequence, maxSequence);
+            long flushedSequence = jdbcTemplate.query(
+                    "SELECT flushed_sequence FROM hot_stock_flushes WHERE product_id = ? AND journal_id = ?",
+                    (rs, rowNum) -> rs.getLong(1), productId, journalId).stream().findFirst().orElse(0L);
+            long delta = productEntries.getValue().stream()
+                    .filter(entry -> entry.sequence() > flushedSequence)
+                    .mapToLong(HotStockJournal.Entry::delta)
+                    .sum();
+            if (maxSequence > flushedSequence && productRepository.applyStockDelta(productId, journalId, delta, maxSequence) > 0) {
+                log.info("Recovered {} unflushed stock for hot product {} from the journal", delta, productId);
+            }
+        }
+        // Everything replayed is now in the database, so other instances may take these products over
+        jdbcTemplate.update("UPDATE hot_stock_flushes SET active = false WHERE journal_id = ?", journalId);
+        journal.delete(journal.segments());
+        journal.open(lastSequence);
+        productRepository.findHotProductIds().forEach(this::register);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        flushAll();
+        journal.close();
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Starts aggregating a product's stock in memory; a no-op unless the mode is enabled and this instance owns it
+    // Waits for the product's row lock, so no map or counter lock is held meanwhile
+    public void register(Long productId) {
+        if (!enabled || !ownership.test(productId) || counters.containsKey(productId)) {
+            return;
+        }
+        HotCounter counter = transaction.execute(status -> {
+            if (productRepository.lockHotProductIds(List.of(productId)).isEmpty()) {
+                return null;
+            }
+            List<String> others = jdbcTemplate.queryForList(
+                    "SELECT journal_id FROM hot_stock_flushes WHERE product_id = ? AND journal_id <> ? AND active",
+                    String.class, productId, journal.getId());
+            if (!others.isEmpty()) {
+                if (clustered) {
+                    // Its previous owner lost the lease before flushing, or crashed and has not replayed its journal yet
+                    log.warn("Not taking hot product {} over yet: journal {} may still hold unflushed stock for it", productId, others);
+                    return null;
+                }
+                // Outside cluster mode these can only be journals of earlier runs of this instance that are gone
+                log.warn("Taking hot product {} over from journal {}; stock it had not flushed is lost", productId, others);
+                jdbcTemplate.update("UPDATE hot_stock_flushes SET active = false WHERE product_id = ? AND journal_id <> ?",
+                        productId, journal.getId());
+            }
+            if (jdbcTemplate.update("UPDATE hot_stock_flushes SET active = true WHERE product_id = ? AND journal_id = ?",
+                    productId, journal.getId()) == 0) {
+                jdbcTemplate.update("INSERT INTO hot_stock_flushes (product_id, journal_id, flushed_sequence, active) VALUES (?, ?, 0, true)",
+                        productId, journal.getId());
+            }
+            HotCounter loaded = new HotCounter();
+            loaded.available.set(productRepository.findAvailableQuantityById(productId).orElse(0));
+            return loaded;
+        });
+        if (counter != null) {
+            counters.putIfAbsent(productId, counter);
+        }
+    }
+
+    // Flushes and stops aggregating a product; later mutations go straight to the database
+    // The flush is part of the caller's transaction if there is one, and a rollback registers the product again
+    public void unregister(Long productId) {
+        if (!counters.containsKey(productId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transaction.executeWithoutResult(status -> unregister(productId));
+            return;
+        }
+        productRepository.lockHotProductIds(List.of(productId));
+        HotCounter counter = counters.get(productId);
+        if (counter == null) {
+            return;
+        }
+        lockCounters(List.of(productId));
+        counter.retired = true;
+        counters.remove(productId, counter);
+        // Lets the next owner take it over
+        jdbcTemplate.update("UPDATE hot_stock_flushes SET active = false WHERE product_id = ? AND journal_id = ?",
+                productId, journal.getId());
+    }
+
+    // Unregisters every product matching the filter, e.g. those in shards this instance is giving up
+    // One whose delta cannot be written stays loaded, without selling since it is not owned, until a flush writes it
+    void unregisterIf(Predicate<Long> filter) {
+        for (Long productId : counters.keySet().stream().filter(filter).toList()) {
+            try {
+                unregister(productId);
+            } catch (RuntimeException e) {
+                log.warn("Could not flush hot stock for product {} before giving it up: {}", productId, e.toString());
+            }
+        }
+    }
+
+    public Outcome tryDecrease(Long productId, int amount) {
+        HotCounter counter = counters.get(productId);
+        if (counter == null) {
+            return Outcome.NOT_HOT;
+        }
+        if (!ownership.test(productId)) {
+            return Outcome.NOT_OWNER;
+        }
+        counter.lock.readLock().lock();
+        try {
+            if (counter.retired) {
+                return Outcome.NOT_HOT;
+            }
+            long current;
+            do {
+                current = counter.available.get();
+                if (current < amount) {
+                    return Outcome.INSUFFICIENT_STOCK;
+                }
+            } while (!counter.available.compareAndSet(current, current - amount));
+            try {
+                journal.append(productId, -amount);
+            } catch (RuntimeException e) {
+                counter.available.addAndGet(amount);
+                throw e;
+            }
+            counter.pending.addAndGet(-amount);
+        } finally {
+            counter.lock.readLock().unlock();
+        }
+        afterOperation(productId, counter);
+        return Outcome.APPLIED;
+    }
+
+    public Outcome tryIncrease(Long productId, int amount) {
+        HotCounter counter = counters.get(productId);
+        if (counter == null) {
+            return Outcome.NOT_HOT;
+        }
+        if (!ownership.test(productId)) {
+            return Outcome.NOT_OWNER;
+        }
+        counter.lock.readLock().lock();
+        try {
+            if (counter.retired) {
+                return Outcome.NOT_HOT;
+            }
+            journal.append(productId, amount);
+            counter.pending.addAndGet(amount);
+            counter.available.addAndGet(amount);
+        } finally {
+            counter.lock.readLock().unlock();
+        }
+        afterOperation(productId, counter);
+        return Outcome.APPLIED;
+    }
+
+    // A copy of the product with the not-yet-flushed delta applied; the managed entity is left untouched
+    public Product withPending(Product product) {
+        HotCounter counter = counters.get(product.getId());
+        long pending = counter == null ? 0 : counter.pending.get();
+        if (pending == 0) {
+            return product;
+        }
+        Product current = new Product(product);
+        current.setQuantityInStock((int) (product.getQuantityInStock() + pending));
+        return current;
+    }
+
+    /**
+     * Flushes the pending deltas of any hot products among {@code productIds} and blocks in-memory sales of them
+     * until the current transaction completes, after which their counters are reloaded from the database.
+     * Call it before reading those rows, so the transaction sees every sale that has been acknowledged.
+     * <p>
+     * In cluster mode the other rows are locked as well, so that none of them can become hot before the transaction
+     * ends; a hot product among them that this instance does not own fails the call.
+     */
+    public void lockForUpdate(Collection<Long> productIds) {
+        if (enabled && clustered) {
+            // Refused straight away, rather than after waiting for the row behind the owner's writes
+            List<Long> foreign = productIds.stream().filter(productId -> !ownership.test(productId)).distinct().toList();
+            if (!foreign.isEmpty()) {
+                productRepository.findHotProductIdsByIdIn(foreign).stream().findFirst().ifPresent(productId -> {
+                    throw new StockOwnedElsewhereException(productId);
+                });
+            }
+            for (Long productId : productRepository.lockHotProductIds(productIds.stream().distinct().toList())) {
+                // Hot but not loaded yet, e.g. flagged since the last heartbeat; load it now if the shard is ours
+                register(productId);
+                if (!counters.containsKey(productId)) {
+                    throw new StockOwnedElsewhereException(productId);
+                }
+            }
+            for (Long productId : productIds) {
+                if (counters.containsKey(productId) && !ownership.test(productId)) {
+                    throw new StockOwnedElsewhereException(productId);
+                }
+            }
+        }
+        List<Long> hotIds = productIds.stream().filter(counters::containsKey).distinct().sorted().toList();
+        if (!hotIds.isEmpty()) {
+            if (!clustered) {
+                productRepository.lockHotProductIds(hotIds);
+            }
+            lockCounters(hotIds);
+        }
+    }
+
+    // The counters are reloaded from what the transaction read just before committing; its connection is gone by
+    // the time afterCompletion runs, and taking another one there could exhaust the pool
+    // The caller holds the products' row locks already: everything takes a product's row lock before its counter's,
+    // so a flush and a transaction that changes the row cannot each wait for the other
+    private void lockCounters(List<Long> hotIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hot product stock can only be locked inside a transaction");
+        }
+        Map<Long, HotCounter> locked = new LinkedHashMap<>();
+        Map<Long, Long> flushed = new HashMap<>();
+        Map<Long, Long> availableAtCommit = new HashMap<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                locked.forEach((productId, counter) -> {
+                    if (!counter.retired) {
+                        availableAtCommit.put(productId, readAvailableQuantity(productId));
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                completeAndUnlock(locked, flushed, availableAtCommit, status);
+            }
+        });
+        // Ascending id order, like the row locks, so two transactions cannot deadlock on these locks
+        for (Long productId : hotIds) {
+            HotCounter counter = counters.get(productId);
+            if (counter == null) {
+                continue;
+            }
+            counter.lock.writeLock().lock();
+            locked.put(productId, counter);
+            flushed.put(productId, flushPending(productId, counter));
+        }
+    }
+
+    /**
+     * Writes every hot product's net delta and refreshes its counter, picking up changes made directly in the
+     * database such as expired reservations. Journal segments are deleted once everything in them is flushed.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-stock.flush-interval:PT0.1S}")
+    public void flushAll() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            List<Path> segments = journal.rotate();
+            boolean flushed = true;
+            for (Long productId : counters.keySet()) {
+                flushed &= flush(productId);
+            }
+            if (flushed) {
+                journal.delete(segments);
+            }
+        } catch (IOException e) {
+            log.warn("Could not rotate the hot stock journal: {}", e.toString());
+        }
+    }
+
+    boolean flush(Long productId) {
+        if (!counters.containsKey(productId)) {
+            return true;
+        }
+        try {
+            if (ownership.test(productId)) {
+                transaction.executeWithoutResult(status -> {
+                    productRepository.lockHotProductIds(List.of(productId));
+                    lockCounters(List.of(productId));
+                });
+            } else {
+                // Given up earlier while its delta could not be written
+                unregister(productId);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // The delta stays pending (and journaled); the next flush retries it
+            log.warn("Could not flush hot stock for product {}: {}", productId, e.toString());
+            return false;
+        }
+    }
+
+    long pendingDelta(Long productId) {
+        HotCounter counter = counters.get(productId);
+        return counter == null ? 0 : counter.pending.get();
+    }
+
+    // Writes the pending delta in the caller's transaction and returns it; throws if it could not be written
+    // Caller holds the counter's write lock, so no sale is between its journal append and its pending update
+    private long flushPending(Long productId, HotCounter counter) {
+        long delta = counter.pending.get();
+        if (delta != 0 && flushTimer.record(() -> productRepository.applyStockDelta(productId, journal.getId(), delta, journal.currentSequence())) == 0) {
+            log.warn("Dropped {} unflushed stock of hot product {}: the product is gone, or the delta was applied already", delta, productId);
+        }
+        counter.pending.addAndGet(-delta);
+        counter.operations.set(0);
+        return delta;
+    }
+
+    private void afterOperation(Long productId, HotCounter counter) {
+        if (counter.operations.incrementAndGet() == flushMaxOperations && !flushExecutor.isShutdown()) {
+            flushExecutor.execute(() -> flush(productId));
+        }
+    }
+
+    private void completeAndUnlock(Map<Long, HotCounter> locked, Map<Long, Long> flushed, Map<Long, Long> availableAtCommit,
+                                   int status) {
+        locked.forEach((productId, counter) -> {
+            try {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    if (!counter.retired) {
+                        counter.available.set(availableAtCommit.get(productId) + counter.pending.get());
+                    }
+                } else if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                    // Nothing to put back for a counter whose flush failed
+                    restorePending(productId, counter, flushed.getOrDefault(productId, 0L));
+                } else {
+                    // Fail closed: no in-memory sales until a flush has read the row again
+                    counter.available.set(Long.MIN_VALUE / 2);
+                    log.warn("Outcome of a transaction that flushed hot stock for product {} is unknown", productId);
+                }
+            } finally {
+                counter.lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // The counter's available quantity already accounts for the delta, which is now unflushed again
+    private void restorePending(Long productId, HotCounter counter, long delta) {
+        counter.pending.addAndGet(delta);
+        if (!counter.retired) {
+            return;
+        }
+        counter.retired = false;
+        HotCounter registered = counters.putIfAbsent(productId, counter);
+        if (registered != null) {
+            // Registered again meanwhile, from a row that never had the delta
+            registered.lock.writeLock().lock();
+            try {
+                registered.pending.addAndGet(delta);
+                registered.available.addAndGet(delta);
+            } finally {
+                registered.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private long readAvailableQuantity(Long productId) {
+        Integer available = transaction.execute(status -> productRepository.findAvailableQuantityById(productId).orElse(0));
+        return available == null ? 0 : available;
+    }
+}
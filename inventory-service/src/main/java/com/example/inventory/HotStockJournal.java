@@ -0,0 +1,155 @@
+package com.example.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the stock deltas accepted for hot products but not yet written to the database.
+ * Each record is one line, {@code sequence,productId,delta}; sequences increase across segments and restarts.
+ * <p>
+ * The journal is split into segments ({@code hot-stock-<firstSequence>.log}). {@link #rotate()} starts a new segment
+ * and returns the older ones, which the caller deletes once everything in them has been flushed. A torn last line
+ * left by a crash is skipped on replay.
+ * <p>
+ * Sequences only order the entries of one journal. Its id, kept in the directory next to the segments, names the
+ * journal in the database's flush records, so a journal replayed after a restart is recognised as the same one.
+ */
+class HotStockJournal implements AutoCloseable {
+
+    private static final String PREFIX = "hot-stock-";
+    private static final String SUFFIX = ".log";
+    private static final String ID_FILE = "journal-id";
+
+    record Entry(long sequence, long productId, long delta) {
+    }
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final String id;
+    private FileChannel segment;
+    private Path segmentPath;
+    private long sequence;
+    private boolean written;
+
+    HotStockJournal(Path directory, boolean syncWrites) throws IOException {
+        this.directory = directory;
+        this.syncWrites = syncWrites;
+        Files.createDirectories(directory);
+        Path idFile = directory.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Files.writeString(idFile, UUID.randomUUID().toString(), StandardCharsets.UTF_8);
+        }
+        this.id = Files.readString(idFile, StandardCharsets.UTF_8).strip();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    // Reads every record of every segment, oldest segment first
+    List<Entry> replay() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : segments()) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length != 3) {
+                    continue;
+                }
+                try {
+                    entries.add(new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                } catch (NumberFormatException e) {
+                    // Torn write from a crash
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Opens a fresh segment; sequences continue after 'lastSequence'
+    synchronized void open(long lastSequence) throws IOException {
+        sequence = lastSequence;
+        openSegment();
+    }
+
+    /**
+     * Appends one delta and returns its sequence. The record reaches the OS before this returns, so it survives a
+     * process crash; with sync-writes it is also forced to disk, so it survives losing the machine.
+     */
+    synchronized long append(long productId, long delta) {
+        long next = sequence + 1;
+        ByteBuffer record = ByteBuffer.wrap((next + "," + productId + "," + delta + "\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            while (record.hasRemaining()) {
+                segment.write(record);
+            }
+            if (syncWrites) {
+                segment.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal stock delta for product " + productId, e);
+        }
+        sequence = next;
+        written = true;
+        return next;
+    }
+
+    synchronized long currentSequence() {
+        return sequence;
+    }
+
+    // Starts a new segment, unless the current one is still empty, and returns the previous ones
+    synchronized List<Path> rotate() throws IOException {
+        if (written) {
+            segment.force(false);
+            segment.close();
+            openSegment();
+        }
+        List<Path> previous = segments();
+        previous.remove(segmentPath);
+        return previous;
+    }
+
+    void delete(List<Path> segments) throws IOException {
+        for (Path path : segments) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(PREFIX) && path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(firstSequence(a), firstSequence(b)))
+                    .toList());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        written = false;
+        segmentPath = directory.resolve(PREFIX + (sequence + 1) + SUFFIX);
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Makes the stock and create endpoints safe to retry: a POST carrying an Idempotency-Key header runs once, and
+ * retries with the same key and the same request get the stored response back, marked with Idempotent-Replayed.
+ * Only successful responses are stored; a failed request releases its key, since it changed nothing and may be
+ * retried. A retry that arrives while the first attempt is still running gets 409, and reusing a key for a different
+ * request (method, path, query or body) gets 422.
+ * <p>
+ * In cluster mode a stock change may be forwarded to the replica that owns the product; {@link ClusterClient} then
+ * hands the claim over to that replica, which stores or releases the key in the shared store instead of this one.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    // Request attribute holding the ClaimedKey of a request that claimed its key here
+    static final String CLAIM_ATTRIBUTE = IdempotencyFilter.class.getName() + ".claim";
+
+    // Bulk imports are left out: their bodies are streamed, not buffered
+    private static final List<String> PATHS = List.of("/api/products", "/api/products/*/decreaseStock",
+            "/api/products/*/increaseStock", "/api/products/stock/batch");
+
+    private final IdempotencyStore store;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    @Autowired
+    public IdempotencyFilter(IdempotencyStore store, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        // A forwarded request carries the fingerprint of the client's own, which is what a retry will match against
+        String forwardedFingerprint = request.getHeader(ClusterClient.FINGERPRINT_HEADER);
+        String fingerprint = forwardedFingerprint != null && request.getHeader(ClusterClient.FORWARDED_HEADER) != null
+                ? forwardedFingerprint : fingerprint(request, body);
+        IdempotencyStore.Claim claim = store.claim(key, fingerprint);
+        meterRegistry.counter("inventory.idempotency.requests", "outcome", claim.status().name().toLowerCase()).increment();
+        switch (claim.status()) {
+            case MISMATCH -> reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+            case IN_PROGRESS -> reject(response, HttpStatus.CONFLICT,
+                    "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+            case REPLAY -> {
+                IdempotencyStore.Entry stored = claim.entry();
+                response.setStatus(stored.statusCode());
+                response.setHeader(REPLAYED_HEADER, "true");
+                if (stored.contentType() != null) {
+                    response.setContentType(stored.contentType());
+                }
+                if (stored.body() != null) {
+                    response.getOutputStream().write(stored.body());
+                }
+            }
+            case CLAIMED -> {
+                ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+                BufferedBodyRequest buffered = new BufferedBodyRequest(request, body);
+                ClaimedKey claimed = new ClaimedKey(key, fingerprint);
+                buffered.setAttribute(CLAIM_ATTRIBUTE, claimed);
+                boolean succeeded = false;
+                try {
+                    chain.doFilter(buffered, wrapper);
+                    succeeded = HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful();
+                } finally {
+                    // A handed-over key is stored or released by the replica the request was forwarded to
+                    if (!claimed.isHandedOver()) {
+                        if (succeeded) {
+                            store.complete(key, fingerprint, wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+                        } else {
+                            store.release(key);
+                        }
+                    }
+                    wrapper.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+    // A key claimed by the request being handled; see ClusterClient#forwardStockChange
+    static final class ClaimedKey {
+
+        private final String key;
+        private final String fingerprint;
+        private volatile boolean handedOver;
+
+        ClaimedKey(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        boolean isHandedOver() {
+            return handedOver;
+        }
+
+        void handOver() {
+            handedOver = true;
+        }
+    }
+
+    // The request with its body already read into memory, so it can be read again by the controller
+    private static class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
@@ -1,9 +1,26 @@
 package com.example.inventory;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -11,11 +28,29 @@ import java.util.Map;
 @RequestMapping("/api/products")
 public class InventoryController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final InventoryService inventoryService;
+    private final StockLedgerService stockLedgerService;
+    private final LowStockTracker lowStockTracker;
+    private final ProductImportService productImportService;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
 
     @Autowired
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, StockLedgerService stockLedgerService,
+                               LowStockTracker lowStockTracker, ProductImportService productImportService,
+                               ClusterClient clusterClient, ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.stockLedgerService = stockLedgerService;
+        this.lowStockTracker = lowStockTracker;
+        this.productImportService = productImportService;
+        this.clusterClient = clusterClient;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -24,14 +59,104 @@ public class InventoryController {
     }
 
     @GetMapping
-    public List<Product> getAllProducts() {
-        return inventoryService.getAllProducts();
+    public ResponseEntity<List<Product>> getProducts(@RequestParam(required = false) Long after,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = pageSize(limit);
+        List<Product> products = inventoryService.getProducts(after, pageSize);
+        return page(products, pageSize, products.isEmpty() ? null : products.get(products.size() - 1).getId());
+    }
+
+    @GetMapping(params = "withSupplier=true")
+    public ResponseEntity<List<ProductWithSupplier>> getProductsWithSuppliers(@RequestParam(required = false) Long after,
+                                                                              @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = pageSize(limit);
+        List<ProductWithSupplier> products = inventoryService.getProductsWithSuppliers(after, pageSize);
+        return page(products, pageSize, products.isEmpty() ? null : products.get(products.size() - 1).getProduct().getId());
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                inventoryService.exportProducts(product -> {
+                    try {
+                        writer.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    @GetMapping(produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProductsCsv() {
+        StreamingResponseBody body = outputStream -> {
+            CsvSchema schema = csvMapper.schemaFor(Product.class).withHeader();
+            try (SequenceWriter writer = csvMapper.writer(schema).writeValues(outputStream)) {
+                inventoryService.exportProducts(product -> {
+                    try {
+                        writer.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(TEXT_CSV_VALUE)).body(body);
     }
 
+    // Bulk import; CSV columns and NDJSON fields are named like the JSON properties of a product, e.g. quantityInStock
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ImportReport importProductsCsv(InputStream body) throws IOException {
+        return productImportService.importCsv(body);
+    }
+
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON_VALUE)
+    public ImportReport importProductsNdjson(InputStream body) throws IOException {
+        return productImportService.importNdjson(body);
+    }
+
+    // Ranked search over name and description; the last word matches as a prefix. Paged by offset.
+    @GetMapping("/search")
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "20") int limit,
+                                                        @RequestParam(defaultValue = "0") int offset) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_SEARCH_PAGE_SIZE);
+        List<Product> products = inventoryService.searchProducts(q, pageSize, offset);
+        if (products.size() < pageSize) {
+            return ResponseEntity.ok(products);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("offset", offset + pageSize)
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok().header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"").body(products);
+    }
+
+    // Products at or below their reorder point, read from the database
+    @GetMapping("/low-stock")
+    public ResponseEntity<List<Product>> getLowStockProducts(@RequestParam(required = false) Long supplierId,
+                                                             @RequestParam(required = false) Long after,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = pageSize(limit);
+        List<Product> products = inventoryService.getLowStockProducts(supplierId, after, pageSize);
+        return page(products, pageSize, products.isEmpty() ? null : products.get(products.size() - 1).getId());
+    }
+
+    // The same set from memory, grouped by supplier; cheap enough for a dashboard to poll every second
+    @GetMapping("/low-stock/live")
+    public List<LowStockTracker.Item> getLiveLowStock(@RequestParam(required = false) Long supplierId) {
+        return lowStockTracker.getItems(supplierId);
+    }
+
+    // Strong ETag from the row version: a matching If-None-Match gets 304 before the product is serialized, and the
+    // product itself usually comes from the second-level cache. Stock changes constantly, so caches must revalidate.
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         return inventoryService.getProductById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok().eTag(entityTag(product)).cacheControl(CacheControl.noCache()).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -40,6 +165,13 @@ public class InventoryController {
         try {
             Product updatedProduct = inventoryService.updateProduct(id, productDetails);
             return ResponseEntity.ok(updatedProduct);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            // The row changed, e.g. by a sale, between reading the product and writing it back
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (StockOwnedElsewhereException | DataIntegrityViolationException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -51,34 +183,94 @@ public class InventoryController {
         return ResponseEntity.noContent().build();
     }
 
+    // ?location=... sells from or restocks one warehouse location; without it the product's total stock is used
     @PostMapping("/{productId}/decreaseStock")
-    public ResponseEntity<Product> decreaseStock(@PathVariable Long productId, @RequestBody Map<String, Integer> payload) {
+    public ResponseEntity<Product> decreaseStock(@PathVariable Long productId, @RequestBody Map<String, Integer> payload,
+                                                 @RequestParam(required = false) String location,
+                                                 @RequestHeader(value = ClusterClient.FORWARDED_HEADER, defaultValue = "false") boolean forwarded,
+                                                 HttpServletRequest request) {
         Integer amount = payload.get("amount");
         if (amount == null || amount <= 0) {
             return ResponseEntity.badRequest().build();
         }
         try {
-            Product updatedProduct = inventoryService.decreaseStock(productId, amount);
+            Product updatedProduct = inventoryService.decreaseStock(productId, amount, location);
             return ResponseEntity.ok(updatedProduct);
+        } catch (StockOwnedElsewhereException e) {
+            return clusterClient.forwardStockChange(e, "decreaseStock", payload, location, forwarded, request);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(null); // Or more specific error response
         }
     }
 
     @PostMapping("/{productId}/increaseStock")
-    public ResponseEntity<Product> increaseStock(@PathVariable Long productId, @RequestBody Map<String, Integer> payload) {
+    public ResponseEntity<Product> increaseStock(@PathVariable Long productId, @RequestBody Map<String, Integer> payload,
+                                                 @RequestParam(required = false) String location,
+                                                 @RequestHeader(value = ClusterClient.FORWARDED_HEADER, defaultValue = "false") boolean forwarded,
+                                                 HttpServletRequest request) {
         Integer amount = payload.get("amount");
         if (amount == null || amount <= 0) {
             return ResponseEntity.badRequest().build();
         }
         try {
-            Product updatedProduct = inventoryService.increaseStock(productId, amount);
+            Product updatedProduct = inventoryService.increaseStock(productId, amount, location);
             return ResponseEntity.ok(updatedProduct);
+        } catch (StockOwnedElsewhereException e) {
+            return clusterClient.forwardStockChange(e, "increaseStock", payload, location, forwarded, request);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(null); // Or more specific error response
         }
     }
 
+    // Stock per location, with the reserved and available totals
+    @GetMapping("/{productId}/availability")
+    public ResponseEntity<ProductAvailability> getAvailability(@PathVariable Long productId) {
+        return inventoryService.getAvailability(productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Body: {"hot": true} to aggregate this product's stock changes in memory and write them behind
+    @PutMapping("/{productId}/hot")
+    public ResponseEntity<Product> setHot(@PathVariable Long productId, @RequestBody Map<String, Boolean> payload) {
+        Boolean hot = payload.get("hot");
+        if (hot == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(inventoryService.setHot(productId, hot));
+        } catch (StockOwnedElsewhereException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/stock/batch")
+    public ResponseEntity<List<StockMovementResult>> applyStockMovements(@RequestBody List<StockMovement> movements) {
+        List<StockMovementResult> results = inventoryService.applyStockMovements(movements);
+        boolean applied = results.stream().allMatch(result -> result.getStatus() == StockMovementResult.Status.APPLIED);
+        return applied ? ResponseEntity.ok(results) : ResponseEntity.badRequest().body(results);
+    }
+
+    // Stock ledger of one product, oldest movement first
+    @GetMapping("/{productId}/stock/movements")
+    public ResponseEntity<List<StockLedgerEntry>> getStockMovements(@PathVariable Long productId,
+                                                                    @RequestParam(required = false) Long after,
+                                                                    @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = pageSize(limit);
+        List<StockLedgerEntry> movements = stockLedgerService.getMovements(productId, after, pageSize);
+        return page(movements, pageSize, movements.isEmpty() ? null : movements.get(movements.size() - 1).getId());
+    }
+
+    // Quantity in stock at an instant, e.g. ?at=2024-05-01T12:00:00Z
+    @GetMapping("/{productId}/stock")
+    public ResponseEntity<Map<String, Object>> getStockAt(@PathVariable Long productId, @RequestParam Instant at) {
+        return stockLedgerService.getStockAt(productId, at)
+                .map(quantity -> ResponseEntity.ok(Map.<String, Object>of("productId", productId, "at", at, "quantityInStock", quantity)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{productId}/supplier")
     public ResponseEntity<SupplierDTO> getProductSupplierDetails(@PathVariable Long productId) {
         return inventoryService.getProductById(productId)
@@ -91,4 +283,37 @@ public class InventoryController {
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
         return ResponseEntity.badRequest().body(e.getMessage());
     }
+
+    // Cluster mode: a write touching a hot product that another replica owns, other than a single stock change
+    @ExceptionHandler(StockOwnedElsewhereException.class)
+    public ResponseEntity<String> handleStockOwnedElsewhereException(StockOwnedElsewhereException e) {
+        return clusterClient.misdirected(e);
+    }
+
+    // Any other write rejected by a database constraint, e.g. renaming to a name that is already taken
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Request conflicts with existing data");
+    }
+
+    // The version changes with every write to the row; a hot product also sells from memory between writes
+    static String entityTag(Product product) {
+        return product.isHot() ? product.getVersion() + "-" + product.getQuantityInStock() : String.valueOf(product.getVersion());
+    }
+
+    private static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    // A full page means there may be more rows, so advertise the next cursor in a Link header
+    private static <T> ResponseEntity<List<T>> page(List<T> items, int pageSize, Long lastId) {
+        if (items.size() < pageSize) {
+            return ResponseEntity.ok(items);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", lastId)
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok().header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"").body(items);
+    }
 }
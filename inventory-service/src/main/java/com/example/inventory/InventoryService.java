@@ -1,81 +1,493 @@
 package com.example.inventory;
 
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class InventoryService {
 
-    private final ProductRepository productRepository;
-    private final RestTemplate restTemplate;
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    static final int MAX_STOCK_MOVEMENTS = 1000;
+    static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    // Ranked results are paged by offset; nobody reads this deep, and deeper offsets only cost the database
+    static final int MAX_SEARCH_OFFSET = 10_000;
+    static final int MAX_LOCATION_ID_LENGTH = 64;
 
-    @Value("${supplier.service.url}")
-    private String supplierServiceUrl;
+    private final ProductRepository productRepository;
+    private final SupplierClient supplierClient;
+    private final SupplierCache supplierCache;
+    private final EntityManager entityManager;
+    private final StockMetrics stockMetrics;
+    private final HotStockAggregator hotStock;
+    private final StockLedgerRepository stockLedger;
+    private final LowStockTracker lowStock;
+    private final LocationStockRepository locationStock;
 
     @Autowired
-    public InventoryService(ProductRepository productRepository, RestTemplate restTemplate) {
+    public InventoryService(ProductRepository productRepository, SupplierClient supplierClient, SupplierCache supplierCache,
+                            EntityManager entityManager, StockMetrics stockMetrics, HotStockAggregator hotStock,
+                            StockLedgerRepository stockLedger, LowStockTracker lowStock, LocationStockRepository locationStock) {
         this.productRepository = productRepository;
-        this.restTemplate = restTemplate;
+        this.supplierClient = supplierClient;
+        this.supplierCache = supplierCache;
+        this.entityManager = entityManager;
+        this.stockMetrics = stockMetrics;
+        this.hotStock = hotStock;
+        this.stockLedger = stockLedger;
+        this.lowStock = lowStock;
+        this.locationStock = locationStock;
     }
 
+    // Duplicate names are rejected by the uk_products_name unique index rather than by a lookup before the insert
+    @Transactional
     public Product createProduct(Product product) {
-        if (productRepository.existsByName(product.getName())) {
-            throw new IllegalArgumentException("Product with name " + product.getName() + " already exists");
+        Product created;
+        try {
+            created = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            if (violates(e, "uk_products_name")) {
+                throw new IllegalArgumentException("Product with name " + product.getName() + " already exists");
+            }
+            throw e;
+        }
+        if (created.getQuantityInStock() != null && created.getQuantityInStock() != 0) {
+            stockLedger.save(new StockLedgerEntry(created.getId(), created.getQuantityInStock(), StockLedgerEntry.Reason.CREATED));
+        }
+        lowStock.update(created);
+        return created;
+    }
+
+    // One keyset page: up to pageSize products with an id greater than 'after', in id order
+    public List<Product> getProducts(Long after, int pageSize) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize)).stream()
+                .map(this::withPendingStock)
+                .collect(Collectors.toList());
+    }
+
+    // One keyset page of products, each joined with its supplier; all suppliers on the page are resolved in one call
+    public List<ProductWithSupplier> getProductsWithSuppliers(Long after, int pageSize) {
+        List<Product> products = getProducts(after, pageSize);
+        Set<Long> supplierIds = products.stream()
+                .map(Product::getSupplierId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, SupplierDTO> suppliers = getSupplierDetails(supplierIds);
+        return products.stream()
+                .map(product -> new ProductWithSupplier(product, suppliers.get(product.getSupplierId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams every product, in id order, to the consumer over a forward-only cursor.
+     * Each product is detached once consumed, so memory use does not grow with the size of the catalog.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+            products.forEach(product -> {
+                consumer.accept(withPendingStock(product));
+                entityManager.detach(product);
+            });
         }
-        return productRepository.save(product);
     }
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    /**
+     * Products matching the query, best match first, one page at a time. Products are loaded by id after the
+     * search, so they are mostly served from the second-level cache.
+     */
+    public List<Product> searchProducts(String query, int limit, int offset) {
+        if (query == null || query.isBlank() || query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be between 1 and " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        if (offset < 0 || offset > MAX_SEARCH_OFFSET) {
+            throw new IllegalArgumentException("Search offset must be between 0 and " + MAX_SEARCH_OFFSET);
+        }
+        List<Long> ids = productRepository.searchProductIds(query, limit, offset);
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(this::withPendingStock)
+                .collect(Collectors.toList());
+    }
+
+    // Reorder candidates from the database, in id order; served by the (supplier_id, reorder_point) index per supplier
+    public List<Product> getLowStockProducts(Long supplierId, Long after, int pageSize) {
+        long from = after == null ? 0L : after;
+        List<Product> products = supplierId == null
+                ? productRepository.findLowStock(from, Limit.of(pageSize))
+                : productRepository.findLowStockBySupplierId(supplierId, from, Limit.of(pageSize));
+        return products.stream().map(this::withPendingStock).collect(Collectors.toList());
     }
 
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productRepository.findById(id).map(this::withPendingStock);
+    }
+
+    /**
+     * The product's stock broken down by location. The total comes from the product row, which is kept up to date
+     * with every location write and is usually served from the second-level cache; only the non-default locations
+     * are read from product_stock, in one indexed lookup on the primary key.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductAvailability> getAvailability(Long id) {
+        return productRepository.findById(id).map(this::withPendingStock).map(product -> {
+            int total = product.getQuantityInStock() == null ? 0 : product.getQuantityInStock();
+            List<LocationStock> stored = locationStock.findByProductIdOrderByLocationIdAsc(id);
+            Map<String, Integer> quantities = new HashMap<>();
+            stored.forEach(location -> quantities.put(location.getLocationId(), location.getQuantity()));
+            // A hot product's pending sales have not been taken off the locations yet; drain them the way the flush will
+            long excess = stored.stream().mapToLong(LocationStock::getQuantity).sum() - total;
+            List<LocationStock> largestFirst = stored.stream()
+                    .sorted(Comparator.comparing(LocationStock::getQuantity).reversed().thenComparing(LocationStock::getLocationId))
+                    .toList();
+            for (LocationStock location : largestFirst) {
+                if (excess <= 0) {
+                    break;
+                }
+                int taken = (int) Math.min(excess, location.getQuantity());
+                quantities.merge(location.getLocationId(), -taken, Integer::sum);
+                excess -= taken;
+            }
+            Map<String, Integer> locations = new TreeMap<>();
+            locations.put(LocationStock.DEFAULT_LOCATION, (int) Math.max(0, -excess));
+            quantities.forEach((locationId, quantity) -> {
+                if (quantity > 0) {
+                    locations.put(locationId, quantity);
+                }
+            });
+            return new ProductAvailability(id, total, product.getReservedQuantity(), product.getAvailableQuantity(), locations);
+        });
     }
 
+    /**
+     * A quantity in the body is recorded as an adjustment in the stock ledger; a null quantity leaves stock as it is.
+     */
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
+        hotStock.lockForUpdate(List.of(id));
         return productRepository.findById(id).map(product -> {
+            if (productDetails.getQuantityInStock() != null && productDetails.getQuantityInStock() < product.getReservedQuantity()) {
+                throw new IllegalArgumentException("Quantity in stock cannot be below the " + product.getReservedQuantity() + " reserved units");
+            }
             product.setName(productDetails.getName());
             product.setDescription(productDetails.getDescription());
             product.setPrice(productDetails.getPrice());
-            product.setQuantityInStock(productDetails.getQuantityInStock());
+            boolean decreased = false;
+            if (productDetails.getQuantityInStock() != null && !productDetails.getQuantityInStock().equals(product.getQuantityInStock())) {
+                int current = product.getQuantityInStock() == null ? 0 : product.getQuantityInStock();
+                decreased = productDetails.getQuantityInStock() < current;
+                stockLedger.save(new StockLedgerEntry(id, productDetails.getQuantityInStock() - current, StockLedgerEntry.Reason.ADJUSTMENT));
+                product.setQuantityInStock(productDetails.getQuantityInStock());
+            }
             product.setSupplierId(productDetails.getSupplierId());
-            return productRepository.save(product);
+            product.setReorderPoint(productDetails.getReorderPoint());
+            product.setReorderQuantity(productDetails.getReorderQuantity());
+            Product saved = productRepository.save(product);
+            if (decreased) {
+                productRepository.reconcileLocations(id);
+            }
+            lowStock.update(saved);
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Product not found with id " + id));
     }
 
     public void deleteProduct(Long id) {
+        hotStock.unregister(id);
         productRepository.deleteById(id);
+        lowStock.remove(id);
     }
 
+    /**
+     * Flags or unflags a product for write-behind stock aggregation. Unflagging writes out the pending delta first.
+     */
+    @Transactional
+    public Product setHot(Long id, boolean hot) {
+        hotStock.lockForUpdate(List.of(id));
+        if (!hot) {
+            hotStock.unregister(id);
+        }
+        if (productRepository.updateHot(id, hot) == 0) {
+            throw new RuntimeException("Product not found with id " + id);
+        }
+        if (hot) {
+            hotStock.register(id);
+        }
+        return findProductOrThrow(id);
+    }
+
+    /**
+     * Sells units from one location. The location must hold them, and they must not be needed for the product's
+     * reservations, which are not tied to a location. A null location sells from the product's total instead.
+     */
+    @Transactional
+    public Product decreaseStock(Long productId, Integer amount, String locationId) {
+        if (locationId == null) {
+            return decreaseStock(productId, amount);
+        }
+        validateLocation(locationId);
+        Timer.Sample sample = stockMetrics.start();
+        String outcome = "error";
+        try {
+            hotStock.lockForUpdate(List.of(productId));
+            if (productRepository.decreaseStockAtLocation(productId, locationId, amount) == 0) {
+                outcome = "not_found";
+                Product product = findProductOrThrow(productId);
+                outcome = "insufficient_stock";
+                throw new IllegalArgumentException("Not enough stock for product " + product.getName() + " at location " + locationId);
+            }
+            outcome = "success";
+            return trackLowStock(findProductOrThrow(productId));
+        } finally {
+            stockMetrics.record(sample, "decrease", outcome);
+        }
+    }
+
+    @Transactional
+    public Product increaseStock(Long productId, Integer amount, String locationId) {
+        if (locationId == null) {
+            return increaseStock(productId, amount);
+        }
+        validateLocation(locationId);
+        Timer.Sample sample = stockMetrics.start();
+        String outcome = "error";
+        try {
+            hotStock.lockForUpdate(List.of(productId));
+            if (productRepository.increaseStockAtLocation(productId, locationId, amount) == 0) {
+                outcome = "not_found";
+                throw new RuntimeException("Product not found with id " + productId);
+            }
+            outcome = "success";
+            return trackLowStock(findProductOrThrow(productId));
+        } finally {
+            stockMetrics.record(sample, "increase", outcome);
+        }
+    }
+
+    @Transactional
     public Product decreaseStock(Long productId, Integer amount) {
-        return productRepository.findById(productId).map(product -> {
-            product.decreaseStock(amount);
-            return productRepository.save(product);
-        }).orElseThrow(() -> new RuntimeException("Product not found with id " + productId));
+        Timer.Sample sample = stockMetrics.start();
+        String outcome = "error";
+        try {
+            HotStockAggregator.Outcome hotOutcome = hotStock.tryDecrease(productId, amount);
+            if (hotOutcome == HotStockAggregator.Outcome.APPLIED) {
+                outcome = "success";
+                return trackLowStock(withPendingStock(findProductOrThrow(productId)));
+            }
+            if (hotOutcome == HotStockAggregator.Outcome.INSUFFICIENT_STOCK) {
+                outcome = "not_found";
+                Product product = findProductOrThrow(productId);
+                outcome = "insufficient_stock";
+                throw new IllegalArgumentException("Not enough stock for product " + product.getName());
+            }
+            if (hotOutcome == HotStockAggregator.Outcome.NOT_OWNER) {
+                outcome = "not_owner";
+                throw new StockOwnedElsewhereException(productId);
+            }
+            // In cluster mode this fails if the product is hot on another replica
+            hotStock.lockForUpdate(List.of(productId));
+            if (productRepository.decreaseStockIfAvailable(productId, amount) == 0) {
+                outcome = "not_found";
+                Product product = findProductOrThrow(productId);
+                outcome = "insufficient_stock";
+                throw new IllegalArgumentException("Not enough stock for product " + product.getName());
+            }
+            outcome = "success";
+            return trackLowStock(findProductOrThrow(productId));
+        } finally {
+            stockMetrics.record(sample, "decrease", outcome);
+        }
     }
 
+    @Transactional
     public Product increaseStock(Long productId, Integer amount) {
-        return productRepository.findById(productId).map(product -> {
-            product.increaseStock(amount);
-            return productRepository.save(product);
-        }).orElseThrow(() -> new RuntimeException("Product not found with id " + productId));
+        Timer.Sample sample = stockMetrics.start();
+        String outcome = "error";
+        try {
+            HotStockAggregator.Outcome hotOutcome = hotStock.tryIncrease(productId, amount);
+            if (hotOutcome == HotStockAggregator.Outcome.APPLIED) {
+                outcome = "success";
+                return trackLowStock(withPendingStock(findProductOrThrow(productId)));
+            }
+            if (hotOutcome == HotStockAggregator.Outcome.NOT_OWNER) {
+                outcome = "not_owner";
+                throw new StockOwnedElsewhereException(productId);
+            }
+            hotStock.lockForUpdate(List.of(productId));
+            if (productRepository.increaseStock(productId, amount) == 0) {
+                outcome = "not_found";
+                throw new RuntimeException("Product not found with id " + productId);
+            }
+            outcome = "success";
+            return trackLowStock(findProductOrThrow(productId));
+        } finally {
+            stockMetrics.record(sample, "increase", outcome);
+        }
+    }
+
+    /**
+     * Applies all movements in one transaction, or none of them if any line would fail.
+     * The affected rows are locked in id order and the new quantities are flushed as one JDBC batch.
+     */
+    @Transactional
+    public List<StockMovementResult> applyStockMovements(List<StockMovement> movements) {
+        if (movements == null || movements.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock movement is required");
+        }
+        if (movements.size() > MAX_STOCK_MOVEMENTS) {
+            throw new IllegalArgumentException("At most " + MAX_STOCK_MOVEMENTS + " stock movements are allowed per request");
+        }
+        Timer.Sample sample = stockMetrics.start();
+        TreeSet<Long> productIds = new TreeSet<>();
+        for (StockMovement movement : movements) {
+            if (movement.getProductId() == null || movement.getDelta() == null || movement.getDelta() == 0) {
+                throw new IllegalArgumentException("Each stock movement needs a productId and a non-zero delta");
+            }
+            productIds.add(movement.getProductId());
+        }
+
+        hotStock.lockForUpdate(productIds);
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, Integer> quantities = new HashMap<>();
+        products.values().forEach(product -> quantities.put(product.getId(), product.getQuantityInStock()));
+
+        List<StockMovementResult> results = new ArrayList<>(movements.size());
+        boolean failed = false;
+        for (StockMovement movement : movements) {
+            Long productId = movement.getProductId();
+            Integer current = quantities.get(productId);
+            if (current == null) {
+                results.add(new StockMovementResult(productId, movement.getDelta(), StockMovementResult.Status.NOT_FOUND, null));
+                failed = true;
+            } else if (movement.getDelta() < 0 && current + movement.getDelta() < products.get(productId).getReservedQuantity()) {
+                results.add(new StockMovementResult(productId, movement.getDelta(), StockMovementResult.Status.INSUFFICIENT_STOCK, current));
+                failed = true;
+            } else {
+                quantities.put(productId, current + movement.getDelta());
+                results.add(new StockMovementResult(productId, movement.getDelta(), StockMovementResult.Status.APPLIED, current + movement.getDelta()));
+            }
+        }
+
+        if (failed) {
+            // Nothing has been written yet, so the managed products stay clean and the transaction commits no changes
+            results.stream()
+                    .filter(result -> result.getStatus() == StockMovementResult.Status.APPLIED)
+                    .forEach(result -> {
+                        result.setStatus(StockMovementResult.Status.NOT_APPLIED);
+                        result.setQuantityInStock(products.get(result.getProductId()).getQuantityInStock());
+                    });
+            stockMetrics.record(sample, "batch", "rejected");
+            return results;
+        }
+        List<Long> decreased = products.values().stream()
+                .filter(product -> quantities.get(product.getId()) < product.getQuantityInStock())
+                .map(Product::getId)
+                .toList();
+        products.values().forEach(product -> product.setQuantityInStock(quantities.get(product.getId())));
+        productRepository.saveAll(products.values());
+        decreased.forEach(productRepository::reconcileLocations);
+        stockLedger.saveAll(movements.stream()
+                .map(movement -> new StockLedgerEntry(movement.getProductId(), movement.getDelta(), StockLedgerEntry.Reason.BATCH))
+                .toList());
+        products.values().forEach(lowStock::update);
+        stockMetrics.record(sample, "batch", "success");
+        return results;
+    }
+
+    private static void validateLocation(String locationId) {
+        if (locationId.isBlank() || locationId.length() > MAX_LOCATION_ID_LENGTH) {
+            throw new IllegalArgumentException("Location must be between 1 and " + MAX_LOCATION_ID_LENGTH + " characters");
+        }
+    }
+
+    // Hot products are served with their not-yet-flushed stock delta applied
+    private Product withPendingStock(Product product) {
+        return hotStock.isHot(product.getId()) ? hotStock.withPending(product) : product;
+    }
+
+    private Product trackLowStock(Product product) {
+        lowStock.update(product);
+        return product;
+    }
+
+    private Product findProductOrThrow(Long productId) {
+        return productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id " + productId));
     }
 
     public Optional<SupplierDTO> getSupplierDetails(Long supplierId) {
+        if (supplierId == null) {
+            return Optional.empty();
+        }
         try {
-            String url = supplierServiceUrl + "/" + supplierId;
-            SupplierDTO supplier = restTemplate.getForObject(url, SupplierDTO.class);
-            return Optional.ofNullable(supplier);
+            return supplierCache.get(supplierId, this::fetchSupplier);
         } catch (Exception e) {
-            // Log the exception, return empty optional if supplier service is unavailable or supplier not found
-            System.err.println("Error fetching supplier details: " + e.getMessage());
+            // Log the exception, return empty optional if supplier service is unavailable or the circuit is open
+            log.warn("Error fetching supplier {}: {}", supplierId, e.toString());
             return Optional.empty();
         }
     }
+
+    // Resolves many suppliers at once; suppliers that are unknown or cannot be fetched are absent from the map
+    public Map<Long, SupplierDTO> getSupplierDetails(Collection<Long> supplierIds) {
+        if (supplierIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            Map<Long, SupplierDTO> suppliers = new HashMap<>();
+            supplierCache.getAll(supplierIds, this::fetchSuppliers)
+                    .forEach((id, supplier) -> supplier.ifPresent(found -> suppliers.put(id, found)));
+            return suppliers;
+        } catch (Exception e) {
+            log.warn("Error fetching {} suppliers: {}", supplierIds.size(), e.toString());
+            return Map.of();
+        }
+    }
+
+    private Optional<SupplierDTO> fetchSupplier(Long supplierId) {
+        return supplierClient.getSupplier(supplierId).blockOptional();
+    }
+
+    private Map<Long, Optional<SupplierDTO>> fetchSuppliers(Set<Long> supplierIds) {
+        List<SupplierDTO> found = supplierClient.getSuppliers(supplierIds).block();
+        Map<Long, Optional<SupplierDTO>> suppliers = new HashMap<>();
+        supplierIds.forEach(id -> suppliers.put(id, Optional.empty()));
+        if (found != null) {
+            found.forEach(supplier -> suppliers.put(supplier.getId(), Optional.of(supplier)));
+        }
+        return suppliers;
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+        // Databases differ in how they report the name (H2 qualifies and upper-cases it), so match loosely
+        return e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase().contains(constraint);
+    }
 }
@@ -0,0 +1,74 @@
+package com.example.inventory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Units of a product held at one warehouse location. Only locations other than {@link #DEFAULT_LOCATION} are stored:
+ * the default location holds the rest of the product's quantity in stock. Rows are written over JDBC by
+ * {@link ProductStockRepositoryImpl}, always after the product row has been locked.
+ */
+@Entity
+@Immutable
+@IdClass(LocationStock.Key.class)
+@Table(name = "product_stock")
+public class LocationStock {
+
+    public static final String DEFAULT_LOCATION = "main";
+
+    @Id
+    private Long productId;
+
+    @Id
+    @Column(length = 64)
+    private String locationId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public static class Key implements Serializable {
+
+        private Long productId;
+        private String locationId;
+
+        public Key() {
+        }
+
+        public Key(Long productId, String locationId) {
+            this.productId = productId;
+            this.locationId = locationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(productId, key.productId) && Objects.equals(locationId, key.locationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, locationId);
+        }
+    }
+
+    public LocationStock() {
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
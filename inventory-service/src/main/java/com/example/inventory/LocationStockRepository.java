@@ -0,0 +1,12 @@
+package com.example.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LocationStockRepository extends JpaRepository<LocationStock, LocationStock.Key> {
+
+    List<LocationStock> findByProductIdOrderByLocationIdAsc(Long productId);
+}
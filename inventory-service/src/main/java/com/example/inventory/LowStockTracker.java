@@ -0,0 +1,108 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of the products at or below their reorder point, kept current by the stock mutation paths so a
+ * dashboard can poll it every second without touching the database. Changes made inside a transaction are applied
+ * once it commits.
+ * <p>
+ * Each instance only sees its own mutations, so the set is also rebuilt from the database every
+ * {@code refresh-interval}; that rebuild is what picks up changes made through other instances.
+ */
+@Component
+public class LowStockTracker {
+
+    public record Item(Long productId, String name, Long supplierId, int quantityInStock, int reorderPoint) {
+    }
+
+    private static final Comparator<Item> BY_SUPPLIER = Comparator
+            .comparing(Item::supplierId, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Item::productId);
+
+    private final ProductRepository productRepository;
+    private final Map<Long, Item> items = new ConcurrentHashMap<>();
+
+    @Value("${inventory.low-stock.refresh-page-size:1000}")
+    private int refreshPageSize;
+
+    @Autowired
+    public LowStockTracker(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        meterRegistry.gaugeMapSize("inventory.low.stock.products", List.of(), items);
+    }
+
+    // Low-stock products grouped by supplier (products without a supplier last), optionally for one supplier only
+    public List<Item> getItems(Long supplierId) {
+        return items.values().stream()
+                .filter(item -> supplierId == null || supplierId.equals(item.supplierId()))
+                .sorted(BY_SUPPLIER)
+                .toList();
+    }
+
+    // Re-evaluates a product after its stock, reorder point or supplier changed
+    public void update(Product product) {
+        Long productId = product.getId();
+        Item item = product.isLowStock()
+                ? new Item(productId, product.getName(), product.getSupplierId(), product.getQuantityInStock(), product.getReorderPoint())
+                : null;
+        afterCommit(() -> {
+            if (item == null) {
+                items.remove(productId);
+            } else {
+                items.put(productId, item);
+            }
+        });
+    }
+
+    public void remove(Long productId) {
+        afterCommit(() -> items.remove(productId));
+    }
+
+    /**
+     * Replaces the set with what the database holds. A mutation that commits while the rebuild is reading may be
+     * overwritten by its older state until the next refresh.
+     */
+    @Scheduled(fixedDelayString = "${inventory.low-stock.refresh-interval:PT30S}")
+    public void refresh() {
+        Map<Long, Item> fresh = new HashMap<>();
+        List<Product> page;
+        long after = 0L;
+        do {
+            page = productRepository.findLowStock(after, Limit.of(refreshPageSize));
+            for (Product product : page) {
+                fresh.put(product.getId(), new Item(product.getId(), product.getName(), product.getSupplierId(),
+                        product.getQuantityInStock(), product.getReorderPoint()));
+                after = product.getId();
+            }
+        } while (page.size() == refreshPageSize);
+        items.keySet().retainAll(fresh.keySet());
+        items.putAll(fresh);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,17 +1,33 @@
 package com.example.inventory;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "products")
 public class Product {
 
+    // Ids handed out per nextval of products_seq; must match the sequence's INCREMENT BY
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence ids, unlike IDENTITY, let Hibernate and the bulk import batch their inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String name;
@@ -20,6 +36,37 @@ public class Product {
     private Integer quantityInStock;
     private Long supplierId; // To link with Supplier Service
 
+    // Reorder when quantity in stock falls to this level or below; null means the product is not replenished
+    private Integer reorderPoint;
+
+    // Units ordered when the product is replenished; null orders enough to get back to twice the reorder point
+    private Integer reorderQuantity;
+
+    // Units on open purchase orders; only the replenishment pipeline changes it
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer onOrderQuantity = 0;
+
+    // Units held by active reservations; only the reservation endpoints change it
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer reservedQuantity = 0;
+
+    // Stock changes for hot products are aggregated in memory and written behind; see HotStockAggregator
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private boolean hot;
+
+    // Checked by Hibernate on entity updates and incremented by every stock UPDATE as well; the ETag is derived from it
+    @Version
+    @JsonIgnore
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     public Product() {
     }
 
@@ -31,6 +78,22 @@ public class Product {
         this.supplierId = supplierId;
     }
 
+    // Copies every field, so a modified view of a managed product can be handed out without touching the entity
+    public Product(Product other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.price = other.price;
+        this.quantityInStock = other.quantityInStock;
+        this.supplierId = other.supplierId;
+        this.reorderPoint = other.reorderPoint;
+        this.reorderQuantity = other.reorderQuantity;
+        this.onOrderQuantity = other.onOrderQuantity;
+        this.reservedQuantity = other.reservedQuantity;
+        this.hot = other.hot;
+        this.version = other.version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -79,9 +142,67 @@ public class Product {
         this.supplierId = supplierId;
     }
 
+    public Integer getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public void setReorderPoint(Integer reorderPoint) {
+        this.reorderPoint = reorderPoint;
+    }
+
+    public Integer getReorderQuantity() {
+        return reorderQuantity;
+    }
+
+    public void setReorderQuantity(Integer reorderQuantity) {
+        this.reorderQuantity = reorderQuantity;
+    }
+
+    public Integer getOnOrderQuantity() {
+        return onOrderQuantity;
+    }
+
+    public void setOnOrderQuantity(Integer onOrderQuantity) {
+        this.onOrderQuantity = onOrderQuantity;
+    }
+
+    @JsonIgnore
+    public boolean isLowStock() {
+        return reorderPoint != null && quantityInStock != null && quantityInStock <= reorderPoint;
+    }
+
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public void setReservedQuantity(Integer reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+
+    public boolean isHot() {
+        return hot;
+    }
+
+    public void setHot(boolean hot) {
+        this.hot = hot;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    // Available to sell: stock that is not held by a reservation
+    public int getAvailableQuantity() {
+        return this.quantityInStock - this.reservedQuantity;
+    }
+
     // Business logic for stock update
     public void decreaseStock(int amount) {
-        if (this.quantityInStock < amount) {
+        if (getAvailableQuantity() < amount) {
             throw new IllegalArgumentException("Not enough stock for product " + this.name);
         }
         this.quantityInStock -= amount;
@@ -0,0 +1,42 @@
+package com.example.inventory;
+
+import java.util.Map;
+
+// A product's stock with the quantity held at each location; the default location holds whatever the others do not
+public class ProductAvailability {
+
+    private final Long productId;
+    private final Integer quantityInStock;
+    private final Integer reservedQuantity;
+    private final Integer availableQuantity;
+    private final Map<String, Integer> locations;
+
+    public ProductAvailability(Long productId, Integer quantityInStock, Integer reservedQuantity,
+                               Integer availableQuantity, Map<String, Integer> locations) {
+        this.productId = productId;
+        this.quantityInStock = quantityInStock;
+        this.reservedQuantity = reservedQuantity;
+        this.availableQuantity = availableQuantity;
+        this.locations = locations;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantityInStock() {
+        return quantityInStock;
+    }
+
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public Map<String, Integer> getLocations() {
+        return locations;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.inventory;
+
+import java.util.List;
+
+/**
+ * Bulk insert for the catalog import: one JDBC batch per call instead of an INSERT per product, with ids taken from
+ * products_seq in blocks, the same way Hibernate allocates them.
+ */
+public interface ProductImportRepository {
+
+    // Assigns ids to the products, inserts them and records a CREATED movement for each one with stock
+    void insertAll(List<Product> products);
+}
@@ -0,0 +1,66 @@
+package com.example.inventory;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportRepositoryImpl implements ProductImportRepository {
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products (id, name, description, price, quantity_in_stock, " +
+            "supplier_id, reorder_point, reorder_quantity, on_order_quantity, reserved_quantity, hot) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, false)";
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (product_id, delta, reason, occurred_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public ProductImportRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        assignIds(products);
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, products.stream().map(product -> new Object[]{
+                product.getId(), product.getName(), product.getDescription(), product.getPrice(), product.getQuantityInStock(),
+                product.getSupplierId(), product.getReorderPoint(), product.getReorderQuantity()}).toList());
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> movements = new ArrayList<>();
+        for (Product product : products) {
+            if (product.getQuantityInStock() != null && product.getQuantityInStock() != 0) {
+                movements.add(new Object[]{product.getId(), product.getQuantityInStock(), StockLedgerEntry.Reason.CREATED.name(), now});
+            }
+        }
+        if (!movements.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MOVEMENT, movements);
+        }
+    }
+
+    // Each nextval is the top of a block of ID_ALLOCATION_SIZE ids, as for Hibernate's pooled optimizer, so ids
+    // handed out here never collide with those Hibernate assigns on save
+    private void assignIds(List<Product> products) {
+        String nextVal = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString("products_seq");
+        long next = 0;
+        long last = -1;
+        for (Product product : products) {
+            if (next > last) {
+                last = jdbcTemplate.queryForObject(nextVal, Long.class);
+                next = Math.max(1, last - Product.ID_ALLOCATION_SIZE + 1);
+            }
+            product.setId(next++);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.inventory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports a product catalog from CSV (with a header row) or NDJSON. The body is parsed as a stream and handled one
+ * chunk at a time: each row is validated on its own, names are checked against the database with one query per
+ * chunk, and the accepted rows are inserted as a single JDBC batch in the chunk's own transaction. Rows that fail are
+ * listed in the returned report; the rest of the file is still imported.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private record Row(long number, Product product) {
+    }
+
+    private final ProductRepository productRepository;
+    private final LowStockTracker lowStock;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    @Value("${inventory.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public ProductImportService(ProductRepository productRepository, LowStockTracker lowStock, ObjectMapper objectMapper,
+                                TransactionTemplate transactionTemplate) {
+        this.productRepository = productRepository;
+        this.lowStock = lowStock;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public ImportReport importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        try (MappingIterator<Map<String, String>> rows = csvMapper.readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader()).readValues(in)) {
+            long number = 0;
+            while (true) {
+                Map<String, String> values;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    number++;
+                    values = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    // The parser cannot resynchronise after a malformed line, so the rest of the file is skipped
+                    report.received();
+                    report.reject(number, "Malformed CSV, import stopped: " + e.getOriginalMessage());
+                    break;
+                }
+                // Empty cells mean "not set" rather than an empty string
+                Map<String, String> fields = new HashMap<>(values);
+                fields.replaceAll((column, value) -> value == null || value.isEmpty() ? null : value);
+                Product product;
+                try {
+                    product = objectMapper.convertValue(fields, Product.class);
+                } catch (IllegalArgumentException e) {
+                    report.received();
+                    report.reject(number, e.getCause() instanceof JsonMappingException mapping ? mapping.getOriginalMessage() : e.getMessage());
+                    continue;
+                }
+                add(chunk, new Row(number, product), report);
+            }
+        }
+        importChunk(chunk, report);
+        logCompletion(report, start);
+        return report;
+    }
+
+    public ImportReport importNdjson(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            long number = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                number++;
+                Product product;
+                try {
+                    product = objectMapper.readValue(line, Product.class);
+                } catch (JsonProcessingException e) {
+                    report.received();
+                    report.reject(number, e.getOriginalMessage());
+                    continue;
+                }
+                add(chunk, new Row(number, product), report);
+            }
+        }
+        importChunk(chunk, report);
+        logCompletion(report, start);
+        return report;
+    }
+
+    private void add(List<Row> chunk, Row row, ImportReport report) {
+        report.received();
+        String error = validate(row.product());
+        if (error != null) {
+            report.reject(row.number(), error);
+            return;
+        }
+        chunk.add(row);
+        if (chunk.size() >= chunkSize) {
+            importChunk(chunk, report);
+            chunk.clear();
+        }
+    }
+
+    // The same rules the products table's constraints enforce, checked up front so one bad row cannot fail a batch
+    private static String validate(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (product.getName().length() > MAX_TEXT_LENGTH) {
+            return "Name is longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (product.getDescription() != null && product.getDescription().length() > MAX_TEXT_LENGTH) {
+            return "Description is longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (product.getPrice() != null && product.getPrice() < 0) {
+            return "Price cannot be negative";
+        }
+        if (product.getQuantityInStock() != null && product.getQuantityInStock() < 0) {
+            return "Quantity in stock cannot be negative";
+        }
+        if (product.getReorderPoint() != null && product.getReorderPoint() < 0) {
+            return "Reorder point cannot be negative";
+        }
+        if (product.getReorderQuantity() != null && product.getReorderQuantity() <= 0) {
+            return "Reorder quantity must be positive";
+        }
+        return null;
+    }
+
+    private void importChunk(List<Row> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Row> duplicates = new ArrayList<>();
+        List<Product> accepted = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<String> taken = new HashSet<>(productRepository.findExistingNames(
+                        chunk.stream().map(row -> row.product().getName()).distinct().toList()));
+                for (Row row : chunk) {
+                    if (taken.add(row.product().getName())) {
+                        accepted.add(row.product());
+                    } else {
+                        duplicates.add(row);
+                    }
+                }
+                productRepository.insertAll(accepted);
+                accepted.forEach(lowStock::update);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A product with one of these names was created after the check; the whole chunk was rolled back
+            chunk.forEach(row -> report.reject(row.number(), "Not imported because of a concurrent change, retry the row"));
+            return;
+        }
+        duplicates.forEach(row -> report.reject(row.number(), "Product with name " + row.product().getName() + " already exists"));
+        report.imported(accepted.size());
+    }
+
+    private static void logCompletion(ImportReport report, long start) {
+        log.info("Imported {} of {} products in {} ms", report.getImported(), report.getReceived(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -1,9 +1,65 @@
 package com.example.inventory;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    boolean existsByName(String name);
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository, ProductSearchRepository,
+        ProductImportRepository {
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT p.name FROM Product p WHERE p.name IN :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    // Must be consumed inside a transaction so the driver can use a server-side cursor
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Product> streamAllByOrderByIdAsc();
+
+    @Query("SELECT p.id FROM Product p WHERE p.hot = true")
+    List<Long> findHotProductIds();
+
+    @Query("SELECT p.id FROM Product p WHERE p.hot = true AND p.id IN :ids")
+    List<Long> findHotProductIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.quantityInStock - p.reservedQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findAvailableQuantityById(@Param("id") Long id);
+
+    // Low-stock products in id order; on PostgreSQL both are served by the partial index idx_products_low_stock
+    @Query("SELECT p FROM Product p WHERE p.reorderPoint IS NOT NULL AND p.quantityInStock <= p.reorderPoint " +
+            "AND p.id > :after ORDER BY p.id")
+    List<Product> findLowStock(@Param("after") Long after, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.supplierId = :supplierId AND p.reorderPoint IS NOT NULL " +
+            "AND p.quantityInStock <= p.reorderPoint AND p.id > :after ORDER BY p.id")
+    List<Product> findLowStockBySupplierId(@Param("supplierId") Long supplierId, @Param("after") Long after, Limit limit);
+
+    // Products that need a purchase order: at or below the reorder point even counting what is already on order.
+    // On PostgreSQL this is served by the partial index idx_products_reorder_candidates
+    @Query("SELECT p FROM Product p WHERE p.supplierId IS NOT NULL AND p.reorderPoint IS NOT NULL " +
+            "AND p.quantityInStock + p.onOrderQuantity <= p.reorderPoint AND p.id > :after ORDER BY p.id")
+    List<Product> findReorderCandidates(@Param("after") Long after, Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids AND p.supplierId IS NOT NULL AND p.reorderPoint IS NOT NULL " +
+            "AND p.quantityInStock + p.onOrderQuantity <= p.reorderPoint")
+    List<Product> findReorderCandidatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Locks rows in ascending id order so that concurrent batches touching overlapping products cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,14 @@
+package com.example.inventory;
+
+import java.util.List;
+
+/**
+ * Ranked product search over name and description. On PostgreSQL it is served by the indexes that the V3 migration
+ * creates (see {@link ProductSearchSchema}): full-text matching with prefix completion of the last word, and trigram
+ * similarity on the name for typos. Other databases fall back to a substring scan.
+ */
+public interface ProductSearchRepository {
+
+    // Ids of the matching products, best match first
+    List<Long> searchProductIds(String query, int limit, int offset);
+}
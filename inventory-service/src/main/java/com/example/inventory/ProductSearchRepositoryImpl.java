@@ -0,0 +1,65 @@
+package com.example.inventory;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    static final int MAX_TERMS = 10;
+
+    // search_vector and both GIN indexes are created by the PostgreSQL V3 migration
+    private static final String POSTGRES_SEARCH = """
+            SELECT id FROM products, to_tsquery('simple', ?) AS query
+            WHERE search_vector @@ query OR lower(name) % ?
+            ORDER BY ts_rank(search_vector, query) + similarity(lower(name), ?) DESC, id
+            LIMIT ? OFFSET ?""";
+
+    private static final String PORTABLE_SEARCH = """
+            SELECT id FROM products
+            WHERE lower(name) LIKE ? ESCAPE '\\' OR lower(description) LIKE ? ESCAPE '\\'
+            ORDER BY CASE WHEN lower(name) LIKE ? ESCAPE '\\' THEN 0 ELSE 1 END, name, id
+            LIMIT ? OFFSET ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductSearchSchema schema;
+
+    public ProductSearchRepositoryImpl(JdbcTemplate jdbcTemplate, ProductSearchSchema schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = schema;
+    }
+
+    @Override
+    public List<Long> searchProductIds(String query, int limit, int offset) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (schema.isFullTextEnabled()) {
+            String tsQuery = toPrefixTsQuery(normalized);
+            if (tsQuery.isEmpty()) {
+                return List.of();
+            }
+            return jdbcTemplate.queryForList(POSTGRES_SEARCH, Long.class, tsQuery, normalized, normalized, limit, offset);
+        }
+        String escaped = normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return jdbcTemplate.queryForList(PORTABLE_SEARCH, Long.class,
+                "%" + escaped + "%", "%" + escaped + "%", escaped + "%", limit, offset);
+    }
+
+    /**
+     * Turns free text into a tsquery that requires every word and matches the last one as a prefix, so results
+     * narrow as the user types: "steel bo" becomes {@code steel & bo:*}. Only letters and digits are kept, which
+     * also keeps tsquery operators in the input from being interpreted.
+     */
+    static String toPrefixTsQuery(String text) {
+        List<String> terms = Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_TERMS)
+                .collect(Collectors.toList());
+        if (terms.isEmpty()) {
+            return "";
+        }
+        return String.join(" & ", terms) + ":*";
+    }
+}
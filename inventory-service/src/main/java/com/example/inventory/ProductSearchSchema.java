@@ -0,0 +1,46 @@
+package com.example.inventory;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether product search can use the PostgreSQL structures created by the
+ * {@code V3__add_search_and_low_stock_indexes} migration: a stored, generated {@code search_vector} column over name
+ * and description with a GIN index, and a trigram GIN index on the lower-cased name (pg_trgm). That migration only runs
+ * on PostgreSQL, so on other databases search falls back to a substring scan.
+ */
+@Component
+public class ProductSearchSchema {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchSchema.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private volatile boolean fullTextEnabled;
+
+    @Autowired
+    public ProductSearchSchema(JdbcTemplate jdbcTemplate,
+                               @Value("${inventory.search.full-text.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void detect() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        fullTextEnabled = enabled && "PostgreSQL".equals(database);
+        if (!fullTextEnabled) {
+            log.info("Product search uses substring matching on {}", database);
+        }
+    }
+
+    public boolean isFullTextEnabled() {
+        return fullTextEnabled;
+    }
+}
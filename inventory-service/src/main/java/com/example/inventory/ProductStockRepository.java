@@ -0,0 +1,60 @@
+package com.example.inventory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock mutations as single conditional UPDATEs: the stock check and the change happen atomically in the
+ * database, so concurrent sales can never sell units that are out of stock or held by a reservation.
+ * Each returns the number of rows updated, so 0 means the product does not exist or the guard failed.
+ * <p>
+ * Mutations without a location apply to the product's total: increases go to the default location, and decreases
+ * use up the default location first and then take the rest from the other locations, largest first.
+ */
+public interface ProductStockRepository {
+
+    int decreaseStockIfAvailable(Long id, int amount);
+
+    int increaseStock(Long id, int amount);
+
+    // Sells units held at one location, if both that location and the product have that many available
+    int decreaseStockAtLocation(Long id, String locationId, int amount);
+
+    // Restocks units at one location
+    int increaseStockAtLocation(Long id, String locationId, int amount);
+
+    // Locks the rows of these products until the transaction ends and returns the ids of the hot ones
+    List<Long> lockHotProductIds(Collection<Long> ids);
+
+    // Takes units off the other locations once the product's total has dropped below what they hold. Call it after
+    // lowering the quantity in stock through the entity, in the same transaction.
+    void reconcileLocations(Long id);
+
+    // Holds units for a reservation, if that many are still available
+    int reserveStock(Long id, int amount);
+
+    // Returns held units to available stock when a reservation is released or expires
+    int releaseReservedStock(Long id, int amount);
+
+    // Turns held units into a sale: both the stock and the held quantity go down
+    int commitReservedStock(Long id, int amount);
+
+    // Puts units on order for replenishment, only if the product is still at or below its reorder point with
+    // what is already on order counted in; 0 means it no longer needs (or already has) an order
+    int placeOnOrder(Long id, int quantity);
+
+    // Takes units off order when a purchase order is rejected
+    int cancelOnOrder(Long id, int quantity);
+
+    // Restocks every product of a received purchase order as one JDBC batch and takes the units off order
+    int receiveOrderedStock(Map<Long, Integer> quantities);
+
+    // Flags or unflags a product for write-behind aggregation
+    int updateHot(Long id, boolean hot);
+
+    // Write-behind flush of a hot product's net delta, covering one journal's entries up to 'sequence', in the caller's
+    // transaction. Each journal's entries are applied at most once; 0 means there was nothing left to apply, because the
+    // product is gone or that journal's earlier flushes already cover the sequence
+    int applyStockDelta(Long id, String journalId, long delta, long sequence);
+}
@@ -0,0 +1,281 @@
+package com.example.inventory;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * The UPDATEs are issued over plain JDBC rather than as JPQL bulk updates because Hibernate empties the
+ * whole Product second-level cache region after every bulk update, which would turn each sale into a
+ * cache flush for the entire catalog. Only the mutated product's cache entry is invalidated instead.
+ * Every UPDATE that changes quantity_in_stock also appends the change to the stock_movements ledger, and every
+ * UPDATE increments the row version, as Hibernate does for its own entity updates.
+ * Location rows (product_stock) are only written once the product row is locked, so concurrent changes to one
+ * product's locations are serialised by that row lock.
+ */
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (product_id, delta, reason, occurred_at) VALUES (?, ?, ?, ?)";
+    private static final String ADD_TO_LOCATION =
+            "UPDATE product_stock SET quantity = quantity + ? WHERE product_id = ? AND location_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public int decreaseStockIfAvailable(Long id, int amount) {
+        return recordMovement(id, -amount, StockLedgerEntry.Reason.SALE, reconcileLocations(id, updateStock(id,
+                "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock - ? " +
+                "WHERE id = ? AND quantity_in_stock - reserved_quantity >= ?", amount, id, amount)));
+    }
+
+    @Override
+    @Transactional
+    public int increaseStock(Long id, int amount) {
+        return recordMovement(id, amount, StockLedgerEntry.Reason.RESTOCK, updateStock(id,
+                "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock + ? WHERE id = ?", amount, id));
+    }
+
+    @Override
+    @Transactional
+    public int decreaseStockAtLocation(Long id, String locationId, int amount) {
+        // With the row locked, the location sums read below cannot change until this transaction ends
+        lockProduct(id);
+        if (LocationStock.DEFAULT_LOCATION.equals(locationId)) {
+            return recordMovement(id, -amount, StockLedgerEntry.Reason.SALE, updateStock(id,
+                    "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock - ? " +
+                    "WHERE id = ? AND quantity_in_stock - reserved_quantity >= ? AND quantity_in_stock - " +
+                    "(SELECT COALESCE(SUM(s.quantity), 0) FROM product_stock s WHERE s.product_id = products.id) >= ?",
+                    amount, id, amount, amount));
+        }
+        if (jdbcTemplate.update("UPDATE product_stock SET quantity = quantity - ? " +
+                "WHERE product_id = ? AND location_id = ? AND quantity >= ?", amount, id, locationId, amount) == 0) {
+            return 0;
+        }
+        int updated = updateStock(id, "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock - ? " +
+                "WHERE id = ? AND quantity_in_stock - reserved_quantity >= ?", amount, id, amount);
+        if (updated == 0) {
+            // The units at this location are held by reservations; put them back
+            jdbcTemplate.update(ADD_TO_LOCATION, amount, id, locationId);
+        }
+        return recordMovement(id, -amount, StockLedgerEntry.Reason.SALE, updated);
+    }
+
+    @Override
+    @Transactional
+    public int increaseStockAtLocation(Long id, String locationId, int amount) {
+        if (LocationStock.DEFAULT_LOCATION.equals(locationId)) {
+            return increaseStock(id, amount);
+        }
+        int updated = updateStock(id, "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock + ? WHERE id = ?", amount, id);
+        // The product row is now locked, so no other transaction can insert this location's row in the meantime
+        if (updated > 0 && jdbcTemplate.update(ADD_TO_LOCATION, amount, id, locationId) == 0) {
+            jdbcTemplate.update("INSERT INTO product_stock (product_id, location_id, quantity) VALUES (?, ?, ?)", id, locationId, amount);
+        }
+        return recordMovement(id, amount, StockLedgerEntry.Reason.RESTOCK, updated);
+    }
+
+    @Override
+    @Transactional
+    public int reserveStock(Long id, int amount) {
+        return updateStock(id, "UPDATE products SET version = version + 1, reserved_quantity = reserved_quantity + ? " +
+                "WHERE id = ? AND quantity_in_stock - reserved_quantity >= ?", amount, id, amount);
+    }
+
+    @Override
+    @Transactional
+    public int releaseReservedStock(Long id, int amount) {
+        return updateStock(id, "UPDATE products SET version = version + 1, reserved_quantity = reserved_quantity - ? " +
+                "WHERE id = ? AND reserved_quantity >= ?", amount, id, amount);
+    }
+
+    @Override
+    @Transactional
+    public int commitReservedStock(Long id, int amount) {
+        return recordMovement(id, -amount, StockLedgerEntry.Reason.RESERVATION, reconcileLocations(id, updateStock(id,
+                "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock - ?, " +
+                "reserved_quantity = reserved_quantity - ? WHERE id = ? AND reserved_quantity >= ?", amount, amount, id, amount)));
+    }
+
+    @Override
+    @Transactional
+    public int placeOnOrder(Long id, int quantity) {
+        return updateStock(id, "UPDATE products SET version = version + 1, on_order_quantity = on_order_quantity + ? WHERE id = ? " +
+                "AND reorder_point IS NOT NULL AND quantity_in_stock + on_order_quantity <= reorder_point", quantity, id);
+    }
+
+    @Override
+    @Transactional
+    public int cancelOnOrder(Long id, int quantity) {
+        return updateStock(id, "UPDATE products SET version = version + 1, on_order_quantity = GREATEST(on_order_quantity - ?, 0) WHERE id = ?", quantity, id);
+    }
+
+    @Override
+    @Transactional
+    public int receiveOrderedStock(Map<Long, Integer> quantities) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(quantities.keySet()));
+        entityManager.flush();
+        ids.forEach(this::lockCacheEntry);
+        int[] counts = jdbcTemplate.batchUpdate("UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock + ?, " +
+                        "on_order_quantity = GREATEST(on_order_quantity - ?, 0) WHERE id = ?",
+                ids.stream().map(id -> new Object[]{quantities.get(id), quantities.get(id), id}).toList());
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> movements = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched statements; the rows were locked by the caller
+            if (counts[i] != 0) {
+                movements.add(new Object[]{ids.get(i), quantities.get(ids.get(i)), StockLedgerEntry.Reason.PURCHASE_ORDER.name(), now});
+            }
+        }
+        if (!movements.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MOVEMENT, movements);
+        }
+        entityManager.clear();
+        return movements.size();
+    }
+
+    @Override
+    @Transactional
+    public int updateHot(Long id, boolean hot) {
+        return updateStock(id, "UPDATE products SET version = version + 1, hot = ? WHERE id = ?", hot, id);
+    }
+
+    @Override
+    @Transactional
+    public int applyStockDelta(Long id, String journalId, long delta, long sequence) {
+        // The flush record is read under the product's row lock, so two flushes of one journal cannot both apply
+        if (!lockProduct(id)) {
+            return 0;
+        }
+        Long flushed = jdbcTemplate.query("SELECT flushed_sequence FROM hot_stock_flushes WHERE product_id = ? AND journal_id = ?",
+                (rs, rowNum) -> rs.getLong(1), id, journalId).stream().findFirst().orElse(null);
+        if (flushed == null) {
+            // Nothing of this journal's has been applied yet, e.g. the transaction that took the product over rolled back
+            jdbcTemplate.update("INSERT INTO hot_stock_flushes (product_id, journal_id, flushed_sequence, active) VALUES (?, ?, 0, true)",
+                    id, journalId);
+            flushed = 0L;
+        }
+        if (flushed >= sequence) {
+            return 0;
+        }
+        jdbcTemplate.update("UPDATE hot_stock_flushes SET flushed_sequence = ? WHERE product_id = ? AND journal_id = ?",
+                sequence, id, journalId);
+        int updated = updateStock(id, "UPDATE products SET version = version + 1, quantity_in_stock = quantity_in_stock + ? WHERE id = ?",
+                delta, id);
+        if (updated == 0) {
+            // Rolls the flush record back with it: the delta stays pending and journaled
+            throw new IllegalStateException("Hot stock flush of product " + id + " updated no row");
+        }
+        return recordMovement(id, delta, StockLedgerEntry.Reason.HOT_FLUSH, delta < 0 ? reconcileLocations(id, updated) : updated);
+    }
+
+    @Override
+    @Transactional
+    public void reconcileLocations(Long id) {
+        // Writes out a pending entity update first, which also locks the product row
+        entityManager.flush();
+        reconcileLocations(id, 1);
+    }
+
+    private int updateStock(Long id, String sql, Object... args) {
+        entityManager.flush();
+        lockCacheEntry(id);
+        int updated = jdbcTemplate.update(sql, args);
+        // Later reads in this transaction must see the new row, not an instance loaded before the UPDATE
+        entityManager.clear();
+        return updated;
+    }
+
+    // After a decrease of the total that went through: the default location is used up first, so once the total is
+    // below what the other locations hold, the difference comes off them, largest first
+    private int reconcileLocations(Long id, int updated) {
+        if (updated == 0) {
+            return updated;
+        }
+        List<Object[]> locations = jdbcTemplate.query("SELECT location_id, quantity FROM product_stock " +
+                        "WHERE product_id = ? AND quantity > 0 ORDER BY quantity DESC, location_id",
+                (rs, rowNum) -> new Object[]{rs.getString(1), rs.getInt(2)}, id);
+        if (locations.isEmpty()) {
+            return updated;
+        }
+        Integer total = jdbcTemplate.queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, id);
+        long excess = locations.stream().mapToLong(location -> (Integer) location[1]).sum() - (total == null ? 0 : total);
+        for (Object[] location : locations) {
+            if (excess <= 0) {
+                break;
+            }
+            int taken = (int) Math.min(excess, (Integer) location[1]);
+            jdbcTemplate.update(ADD_TO_LOCATION, -taken, id, location[0]);
+            excess -= taken;
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> lockHotProductIds(Collection<Long> ids) {
+        // Ascending id order, like every other multi-row lock, so that two transactions cannot deadlock
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query("SELECT id, hot FROM products WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                        (rs, rowNum) -> rs.getBoolean("hot") ? rs.getLong("id") : null, ids.toArray())
+                .stream().filter(Objects::nonNull).toList();
+    }
+
+    // False if there is no such product
+    private boolean lockProduct(Long id) {
+        return !jdbcTemplate.query("SELECT id FROM products WHERE id = ? FOR UPDATE", (rs, rowNum) -> rs.getLong(1), id).isEmpty();
+    }
+
+    // Appends the change to the stock ledger, in the same transaction, when the UPDATE went through
+    private int recordMovement(Long id, long delta, StockLedgerEntry.Reason reason, int updated) {
+        if (updated > 0 && delta != 0) {
+            jdbcTemplate.update(INSERT_MOVEMENT, id, delta, reason.name(), Timestamp.from(Instant.now()));
+        }
+        return updated;
+    }
+
+    // Same soft-lock protocol Hibernate applies to its own entity updates: while the lock is held, reads of
+    // this product miss the cache and cannot re-populate it, and once it is released loads that started
+    // before the commit still cannot put their (stale) state back. Product is versioned, so the lock keeps the cached
+    // version and only a newer one may replace it: that is why every UPDATE here increments the version.
+    private void lockCacheEntry(Long id) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Product.class);
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        if (cacheAccess == null) {
+            return;
+        }
+        Object key = cacheAccess.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+        SoftLock lock = cacheAccess.lockItem(session, key, null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cacheAccess.unlockItem(session, key, lock);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.inventory;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// A product rendered together with its supplier; supplier is null when it could not be resolved
+public class ProductWithSupplier {
+
+    @JsonUnwrapped
+    private final Product product;
+    private final SupplierDTO supplier;
+
+    public ProductWithSupplier(Product product, SupplierDTO supplier) {
+        this.product = product;
+        this.supplier = supplier;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public SupplierDTO getSupplier() {
+        return supplier;
+    }
+}
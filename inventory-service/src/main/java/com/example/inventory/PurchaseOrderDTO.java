@@ -0,0 +1,92 @@
+package com.example.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A purchase order in supplier-service (POST /api/suppliers/purchase-orders)
+public class PurchaseOrderDTO {
+
+    public static class Line {
+        private Long productId;
+        private Integer quantity;
+
+        public Line() {
+        }
+
+        public Line(Long productId, Integer quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    private Long id;
+    private Long supplierId;
+    private String reference;
+    private String status;
+    private List<Line> lines = new ArrayList<>();
+
+    public PurchaseOrderDTO() {
+    }
+
+    public PurchaseOrderDTO(Long supplierId, String reference, List<Line> lines) {
+        this.supplierId = supplierId;
+        this.reference = reference;
+        this.lines = lines;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.inventory;
+
+// One entry of supplier-service's purchase order receipt feed (GET /api/suppliers/purchase-orders/receipts)
+public class PurchaseOrderReceiptDTO {
+    private Long id;
+    private PurchaseOrderDTO purchaseOrder;
+
+    public PurchaseOrderReceiptDTO() {
+    }
+
+    public PurchaseOrderReceiptDTO(Long id, PurchaseOrderDTO purchaseOrder) {
+        this.id = id;
+        this.purchaseOrder = purchaseOrder;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public PurchaseOrderDTO getPurchaseOrder() {
+        return purchaseOrder;
+    }
+
+    public void setPurchaseOrder(PurchaseOrderDTO purchaseOrder) {
+        this.purchaseOrder = purchaseOrder;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux handlers for the reactive read path: the product page, a single product and its supplier, answered like
+ * the {@link InventoryController} endpoints with the same paths. Nothing here blocks: rows come from
+ * {@link ReactiveProductRepository}, pending hot-stock changes from memory, and a supplier that is not cached is
+ * fetched by {@link SupplierClient} on the event loop. A single product carries the same ETag as on the MVC stack.
+ */
+@Component
+public class ReactiveProductHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProductHandler.class);
+
+    private final ReactiveProductRepository productRepository;
+    private final HotStockAggregator hotStock;
+    private final SupplierCache supplierCache;
+    private final SupplierClient supplierClient;
+
+    @Autowired
+    public ReactiveProductHandler(ReactiveProductRepository productRepository, HotStockAggregator hotStock,
+                                  SupplierCache supplierCache, SupplierClient supplierClient) {
+        this.productRepository = productRepository;
+        this.hotStock = hotStock;
+        this.supplierCache = supplierCache;
+        this.supplierClient = supplierClient;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                // ?withSupplier=true and the NDJSON/CSV exports are only served by the MVC endpoints
+                .GET("/api/products", request -> request.queryParam("withSupplier").isEmpty(), this::getProducts)
+                .GET("/api/products/{id}", this::getProductById)
+                .GET("/api/products/{id}/supplier", this::getProductSupplierDetails)
+                // Malformed ids and query parameters; the handlers parse them inside the Mono so that they end up here
+                .onError(NumberFormatException.class, (e, request) -> ServerResponse.badRequest().build())
+                .build();
+    }
+
+    Mono<ServerResponse> getProducts(ServerRequest request) {
+        return Mono.defer(() -> getPage(request));
+    }
+
+    Mono<ServerResponse> getProductById(ServerRequest request) {
+        return Mono.fromCallable(() -> Long.parseLong(request.pathVariable("id")))
+                .flatMap(productRepository::findById)
+                .map(this::withPendingStock)
+                .flatMap(product -> {
+                    String entityTag = InventoryController.entityTag(product);
+                    return request.checkNotModified(entityTag).switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                            .eTag(entityTag)
+                            .cacheControl(CacheControl.noCache())
+                            .bodyValue(product)));
+                })
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    Mono<ServerResponse> getProductSupplierDetails(ServerRequest request) {
+        return Mono.fromCallable(() -> Long.parseLong(request.pathVariable("id")))
+                .flatMap(productRepository::findById)
+                .mapNotNull(Product::getSupplierId)
+                .flatMap(this::getSupplierDetails)
+                .flatMap(supplier -> ServerResponse.ok().bodyValue(supplier))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private Mono<ServerResponse> getPage(ServerRequest request) {
+        long after = request.queryParam("after").map(Long::parseLong).orElse(0L);
+        int limit = request.queryParam("limit").map(Integer::parseInt).orElse(100);
+        int pageSize = Math.min(Math.max(limit, 1), InventoryController.MAX_PAGE_SIZE);
+        return productRepository.findPage(after, pageSize)
+                .map(this::withPendingStock)
+                .collectList()
+                .flatMap(products -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.ok();
+                    // A full page means there may be more rows, so advertise the next cursor in a Link header
+                    if (products.size() == pageSize) {
+                        String next = UriComponentsBuilder.fromUri(request.uri())
+                                .replaceQueryParam("after", products.get(products.size() - 1).getId())
+                                .replaceQueryParam("limit", pageSize)
+                                .toUriString();
+                        response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                    }
+                    return response.bodyValue(products);
+                });
+    }
+
+    // Empty if supplier-service is unavailable or the circuit is open, like InventoryService.getSupplierDetails
+    private Mono<SupplierDTO> getSupplierDetails(Long supplierId) {
+        return supplierCache.getAsync(supplierId, supplierClient::getSupplier)
+                .onErrorResume(e -> {
+                    log.warn("Error fetching supplier {}: {}", supplierId, e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private Product withPendingStock(Product product) {
+        return hotStock.isHot(product.getId()) ? hotStock.withPending(product) : product;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.inventory;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Product reads over R2DBC for the reactive read path (see {@link ReactiveProductServer}). The pool is kept to this
+ * class rather than published as a ConnectionFactory bean, which would make Boot back off from the JDBC DataSource.
+ * Rows are read straight from the database: the Hibernate second-level cache is not shared with this path.
+ */
+@Repository
+public class ReactiveProductRepository {
+
+    private static final String COLUMNS = "id, name, description, price, quantity_in_stock, supplier_id, reorder_point, " +
+            "reorder_quantity, on_order_quantity, reserved_quantity, hot, version";
+
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveProductRepository(@Value("${inventory.reactive.enabled:false}") boolean enabled,
+                                     @Value("${inventory.reactive.r2dbc.url:}") String url,
+                                     @Value("${inventory.reactive.r2dbc.username:}") String username,
+                                     @Value("${inventory.reactive.r2dbc.password:}") String password,
+                                     @Value("${inventory.reactive.r2dbc.max-size:20}") int maxSize,
+                                     @Value("${inventory.reactive.r2dbc.max-idle-time:30m}") Duration maxIdleTime) {
+        if (!enabled) {
+            this.pool = null;
+            this.databaseClient = null;
+            return;
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isBlank()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isBlank()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("inventory-reactive")
+                .initialSize(0)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+    }
+
+    public Mono<Product> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    // Keyset page in id order, like ProductRepository.findByIdGreaterThanOrderByIdAsc
+    public Flux<Product> findPage(long after, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+    private static Product toProduct(Readable row) {
+        Product product = new Product(row.get("name", String.class), row.get("description", String.class),
+                row.get("price", Double.class), row.get("quantity_in_stock", Integer.class), row.get("supplier_id", Long.class));
+        product.setId(row.get("id", Long.class));
+        product.setReorderPoint(row.get("reorder_point", Integer.class));
+        product.setReorderQuantity(row.get("reorder_quantity", Integer.class));
+        product.setOnOrderQuantity(row.get("on_order_quantity", Integer.class));
+        product.setReservedQuantity(row.get("reserved_quantity", Integer.class));
+        product.setHot(Boolean.TRUE.equals(row.get("hot", Boolean.class)));
+        product.setVersion(row.get("version", Long.class));
+        return product;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Optional reactive read path, enabled with {@code inventory.reactive.enabled=true}. The application itself stays on
+ * Spring MVC; this serves {@link ReactiveProductHandler}'s routes from a Reactor Netty server of its own on
+ * {@code inventory.reactive.port}, so the same read endpoints can be compared on both stacks side by side.
+ */
+@Component
+public class ReactiveProductServer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProductServer.class);
+
+    private final ReactiveProductHandler handler;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int port;
+
+    private DisposableServer server;
+
+    @Autowired
+    public ReactiveProductServer(ReactiveProductHandler handler, ObjectMapper objectMapper,
+                                 @Value("${inventory.reactive.enabled:false}") boolean enabled,
+                                 @Value("${inventory.reactive.port:8091}") int port) {
+        this.handler = handler;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Serialize with the application's ObjectMapper, so products look the same on both stacks
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive read path listening on port {}", server.port());
+    }
+
+    // The port actually bound, which differs from inventory.reactive.port when that is 0; -1 when disabled
+    public int getPort() {
+        return server == null ? -1 : server.port();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.inventory;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A purchase order raised by the replenishment pipeline for one supplier. It is written locally (PENDING) in the same
+ * transaction that puts its units on order, then sent to supplier-service under its reference (SUBMITTED), and
+ * restocks its products once supplier-service reports it received (RECEIVED).
+ */
+@Entity
+@Table(name = "replenishment_orders", indexes = @Index(name = "idx_replenishment_orders_status", columnList = "status"))
+public class ReplenishmentOrder {
+
+    public enum Status {
+        PENDING,
+        SUBMITTED,
+        RECEIVED,
+        // supplier-service refused the order; its units were taken off order again
+        REJECTED
+    }
+
+    @Embeddable
+    public static class Line {
+        @Column(nullable = false)
+        private Long productId;
+
+        @Column(nullable = false)
+        private Integer quantity;
+
+        public Line() {
+        }
+
+        public Line(Long productId, Integer quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long supplierId;
+
+    // Idempotency key for supplier-service, so a retried submission never opens a second order
+    @Column(nullable = false, unique = true)
+    private String reference;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "replenishment_order_lines", joinColumns = @JoinColumn(name = "replenishment_order_id"))
+    private List<Line> lines = new ArrayList<>();
+
+    private Long purchaseOrderId;
+
+    // Id of the supplier-service receipt that completed this order; the highest one is the receipt feed cursor
+    private Long receiptId;
+
+    private Instant createdAt;
+
+    public ReplenishmentOrder() {
+    }
+
+    public ReplenishmentOrder(Long supplierId, List<Line> lines) {
+        this.supplierId = supplierId;
+        this.reference = "inventory-" + UUID.randomUUID();
+        this.status = Status.PENDING;
+        this.lines = new ArrayList<>(lines);
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public Long getPurchaseOrderId() {
+        return purchaseOrderId;
+    }
+
+    public void setPurchaseOrderId(Long purchaseOrderId) {
+        this.purchaseOrderId = purchaseOrderId;
+    }
+
+    public Long getReceiptId() {
+        return receiptId;
+    }
+
+    public void setReceiptId(Long receiptId) {
+        this.receiptId = receiptId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
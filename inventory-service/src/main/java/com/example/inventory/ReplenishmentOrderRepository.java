@@ -0,0 +1,30 @@
+package com.example.inventory;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReplenishmentOrderRepository extends JpaRepository<ReplenishmentOrder, Long> {
+
+    List<ReplenishmentOrder> findByStatusOrderByIdAsc(ReplenishmentOrder.Status status, Limit limit);
+
+    // Serializes submission and receipt of the same order across instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM ReplenishmentOrder o WHERE o.id = :id")
+    Optional<ReplenishmentOrder> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM ReplenishmentOrder o WHERE o.reference = :reference")
+    Optional<ReplenishmentOrder> findByReferenceForUpdate(@Param("reference") String reference);
+
+    @Query("SELECT COALESCE(MAX(o.receiptId), 0) FROM ReplenishmentOrder o")
+    long findLastReceiptId();
+}
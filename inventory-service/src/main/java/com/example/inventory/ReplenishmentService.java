@@ -0,0 +1,274 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Replenishment pipeline: raises purchase orders in supplier-service for products at or below their reorder point
+ * and restocks them when the orders are received. Each run goes through three stages.
+ * <ol>
+ * <li>Scan: finds reorder candidates, groups them by supplier and writes one PENDING order per supplier, putting
+ * the ordered units on order so later scans do not order them again. Only products with stock movements since the
+ * previous scan are looked at, read from the stock ledger; a full scan runs on startup and every
+ * {@code full-scan-interval} to pick up reorder points that were raised without any stock moving.</li>
+ * <li>Submit: sends PENDING orders to supplier-service, one request per order. Failed submissions are retried on
+ * the next run under the same reference, so they never open a second order.</li>
+ * <li>Receive: follows supplier-service's receipt feed and restocks every line of a received order in one batch.
+ * Receipt ids are assigned at insert, not commit, so the feed is re-read from a cursor that trails
+ * {@code receipt-settle-delay} behind, as the supplier change feed is; receipts seen before are not received again.</li>
+ * </ol>
+ */
+@Service
+public class ReplenishmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplenishmentService.class);
+
+    static final int MAX_LINES_PER_ORDER = 1000;
+
+    private final ProductRepository productRepository;
+    private final StockLedgerRepository ledgerRepository;
+    private final ReplenishmentOrderRepository orderRepository;
+    private final SupplierClient supplierClient;
+    private final HotStockAggregator hotStock;
+    private final LowStockTracker lowStock;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.replenishment.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.replenishment.settle-delay:PT5S}")
+    private Duration settleDelay;
+
+    @Value("${inventory.replenishment.full-scan-interval:PT6H}")
+    private Duration fullScanInterval;
+
+    @Value("${inventory.replenishment.receipt-settle-delay:PT10S}")
+    private Duration receiptSettleDelay;
+
+    @Value("${inventory.replenishment.batch-size:500}")
+    private int batchSize;
+
+    private volatile Instant scannedUpTo;
+    private volatile Instant lastFullScan;
+    // Every receipt up to this id has been seen and has settled
+    private volatile Long lastReceiptId;
+    // Receipts after the cursor that have been seen, with the System.nanoTime() they were first seen at
+    private final Map<Long, Long> unsettledReceipts = new TreeMap<>();
+
+    @Autowired
+    public ReplenishmentService(ProductRepository productRepository, StockLedgerRepository ledgerRepository,
+                                ReplenishmentOrderRepository orderRepository, SupplierClient supplierClient,
+                                HotStockAggregator hotStock, LowStockTracker lowStock,
+                                TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.orderRepository = orderRepository;
+        this.supplierClient = supplierClient;
+        this.hotStock = hotStock;
+        this.lowStock = lowStock;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.replenishment.interval:PT1M}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            scan();
+            submitPendingOrders();
+            receiveOrders();
+        } catch (Exception e) {
+            // Typically supplier-service being unavailable; every stage picks up where it stopped on the next run
+            log.warn("Replenishment run failed: {}", e.toString());
+        }
+    }
+
+    // Returns the number of orders raised
+    public int scan() {
+        Instant to = Instant.now().minus(settleDelay);
+        Map<Long, List<Product>> candidatesBySupplier = new TreeMap<>();
+        if (scannedUpTo == null || lastFullScan.isBefore(to.minus(fullScanInterval))) {
+            List<Product> page;
+            long after = 0L;
+            do {
+                page = productRepository.findReorderCandidates(after, Limit.of(batchSize));
+                page.forEach(product -> candidatesBySupplier.computeIfAbsent(product.getSupplierId(), id -> new ArrayList<>()).add(product));
+                after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+            } while (page.size() == batchSize);
+            lastFullScan = to;
+        } else {
+            List<Long> moved = ledgerRepository.findProductIdsMovedBetween(scannedUpTo, to);
+            for (int start = 0; start < moved.size(); start += batchSize) {
+                productRepository.findReorderCandidatesByIdIn(moved.subList(start, Math.min(start + batchSize, moved.size())))
+                        .forEach(product -> candidatesBySupplier.computeIfAbsent(product.getSupplierId(), id -> new ArrayList<>()).add(product));
+            }
+        }
+
+        int raised = 0;
+        for (Map.Entry<Long, List<Product>> supplier : candidatesBySupplier.entrySet()) {
+            List<Product> products = supplier.getValue();
+            for (int start = 0; start < products.size(); start += MAX_LINES_PER_ORDER) {
+                List<Product> chunk = products.subList(start, Math.min(start + MAX_LINES_PER_ORDER, products.size()));
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> raiseOrder(supplier.getKey(), chunk)))) {
+                    raised++;
+                }
+            }
+        }
+        scannedUpTo = to;
+        return raised;
+    }
+
+    // Returns the number of orders accepted by supplier-service
+    public int submitPendingOrders() {
+        int submitted = 0;
+        for (ReplenishmentOrder pending : orderRepository.findByStatusOrderByIdAsc(ReplenishmentOrder.Status.PENDING, Limit.of(batchSize))) {
+            List<PurchaseOrderDTO.Line> lines = pending.getLines().stream()
+                    .map(line -> new PurchaseOrderDTO.Line(line.getProductId(), line.getQuantity()))
+                    .collect(Collectors.toList());
+            PurchaseOrderDTO purchaseOrder;
+            try {
+                purchaseOrder = supplierClient.createPurchaseOrder(new PurchaseOrderDTO(pending.getSupplierId(), pending.getReference(), lines)).block();
+            } catch (WebClientResponseException e) {
+                if (!e.getStatusCode().is4xxClientError()) {
+                    throw e;
+                }
+                log.warn("Purchase order {} for supplier {} was rejected: {}", pending.getReference(), pending.getSupplierId(), e.getResponseBodyAsString());
+                transactionTemplate.executeWithoutResult(status -> reject(pending.getId()));
+                continue;
+            }
+            if (purchaseOrder != null) {
+                transactionTemplate.executeWithoutResult(status -> markSubmitted(pending.getId(), purchaseOrder.getId()));
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    // Returns the number of orders restocked
+    public synchronized int receiveOrders() {
+        if (lastReceiptId == null) {
+            lastReceiptId = orderRepository.findLastReceiptId();
+        }
+        int received = 0;
+        long after = lastReceiptId;
+        List<PurchaseOrderReceiptDTO> receipts;
+        try {
+            do {
+                receipts = supplierClient.getPurchaseOrderReceipts(after, batchSize).block();
+                if (receipts == null) {
+                    break;
+                }
+                for (PurchaseOrderReceiptDTO receipt : receipts) {
+                    if (!unsettledReceipts.containsKey(receipt.getId())) {
+                        if (Boolean.TRUE.equals(transactionTemplate.execute(status -> receive(receipt)))) {
+                            received++;
+                        }
+                        unsettledReceipts.put(receipt.getId(), System.nanoTime());
+                    }
+                    after = receipt.getId();
+                }
+            } while (receipts.size() == batchSize);
+        } finally {
+            settleReceipts();
+        }
+        return received;
+    }
+
+    // Moves the cursor over the oldest seen receipts, in id order, as far as they have all settled
+    private void settleReceipts() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, Long>> receipts = unsettledReceipts.entrySet().iterator();
+        while (receipts.hasNext()) {
+            Map.Entry<Long, Long> receipt = receipts.next();
+            if (now - receipt.getValue() < receiptSettleDelay.toNanos()) {
+                break;
+            }
+            lastReceiptId = receipt.getKey();
+            receipts.remove();
+        }
+    }
+
+    private boolean raiseOrder(Long supplierId, List<Product> candidates) {
+        List<ReplenishmentOrder.Line> lines = new ArrayList<>();
+        for (Product product : candidates) {
+            int quantity = orderQuantity(product);
+            // Re-checked atomically, so concurrent scans (or another instance) cannot order the same shortfall twice
+            if (productRepository.placeOnOrder(product.getId(), quantity) == 1) {
+                lines.add(new ReplenishmentOrder.Line(product.getId(), quantity));
+            }
+        }
+        if (lines.isEmpty()) {
+            return false;
+        }
+        orderRepository.save(new ReplenishmentOrder(supplierId, lines));
+        meterRegistry.counter("inventory.replenishment.orders", "stage", "raised").increment();
+        return true;
+    }
+
+    private void markSubmitted(Long orderId, Long purchaseOrderId) {
+        orderRepository.findByIdForUpdate(orderId)
+                .filter(order -> order.getStatus() == ReplenishmentOrder.Status.PENDING)
+                .ifPresent(order -> {
+                    order.setStatus(ReplenishmentOrder.Status.SUBMITTED);
+                    order.setPurchaseOrderId(purchaseOrderId);
+                    meterRegistry.counter("inventory.replenishment.orders", "stage", "submitted").increment();
+                });
+    }
+
+    private void reject(Long orderId) {
+        orderRepository.findByIdForUpdate(orderId)
+                .filter(order -> order.getStatus() == ReplenishmentOrder.Status.PENDING)
+                .ifPresent(order -> {
+                    order.setStatus(ReplenishmentOrder.Status.REJECTED);
+                    order.getLines().forEach(line -> productRepository.cancelOnOrder(line.getProductId(), line.getQuantity()));
+                    meterRegistry.counter("inventory.replenishment.orders", "stage", "rejected").increment();
+                });
+    }
+
+    // Receipts for orders this service did not raise, or has already restocked, are skipped
+    private boolean receive(PurchaseOrderReceiptDTO receipt) {
+        return orderRepository.findByReferenceForUpdate(receipt.getPurchaseOrder().getReference())
+                .filter(order -> order.getStatus() == ReplenishmentOrder.Status.PENDING || order.getStatus() == ReplenishmentOrder.Status.SUBMITTED)
+                .map(order -> {
+                    Map<Long, Integer> quantities = order.getLines().stream()
+                            .collect(Collectors.toMap(ReplenishmentOrder.Line::getProductId, ReplenishmentOrder.Line::getQuantity, Integer::sum, TreeMap::new));
+                    // The status change is flushed by the stock update, which clears the persistence context
+                    order.setStatus(ReplenishmentOrder.Status.RECEIVED);
+                    order.setPurchaseOrderId(receipt.getPurchaseOrder().getId());
+                    order.setReceiptId(receipt.getId());
+                    hotStock.lockForUpdate(quantities.keySet());
+                    productRepository.receiveOrderedStock(quantities);
+                    productRepository.findAllById(quantities.keySet()).forEach(lowStock::update);
+                    meterRegistry.counter("inventory.replenishment.orders", "stage", "received").increment();
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private static int orderQuantity(Product product) {
+        if (product.getReorderQuantity() != null && product.getReorderQuantity() > 0) {
+            return product.getReorderQuantity();
+        }
+        return Math.max(2 * product.getReorderPoint() - product.getQuantityInStock() - product.getOnOrderQuantity(), 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.inventory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+    private final ClusterClient clusterClient;
+
+    @Autowired
+    public ReservationController(ReservationService reservationService, ClusterClient clusterClient) {
+        this.reservationService = reservationService;
+        this.clusterClient = clusterClient;
+    }
+
+    // Body: {"amount": 2, "ttlSeconds": 600}; ttlSeconds is optional
+    @PostMapping("/{productId}/reservations")
+    public ResponseEntity<StockReservation> reserve(@PathVariable Long productId, @RequestBody Map<String, Integer> payload) {
+        Integer amount = payload.get("amount");
+        if (amount == null || amount <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Integer ttlSeconds = payload.get("ttlSeconds");
+        Duration ttl = ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds);
+        return reservationService.reserve(productId, amount, ttl)
+                .map(reservation -> ResponseEntity.status(HttpStatus.CREATED).body(reservation))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/reservations/{reservationId}")
+    public ResponseEntity<StockReservation> getReservation(@PathVariable Long reservationId) {
+        return reservationService.getReservation(reservationId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<StockReservation> confirm(@PathVariable Long reservationId) {
+        return reservationService.confirm(reservationId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<StockReservation> release(@PathVariable Long reservationId) {
+        return reservationService.release(reservationId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // Cluster mode: reservations of a hot product are made on the replica that owns it
+    @ExceptionHandler(StockOwnedElsewhereException.class)
+    public ResponseEntity<String> handleStockOwnedElsewhereException(StockOwnedElsewhereException e) {
+        return clusterClient.misdirected(e);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Reservations hold stock for a checkout without keeping the product row locked: placing, confirming and
+ * releasing a hold are each one conditional UPDATE of products.reserved_quantity, and available-to-sell
+ * (quantity_in_stock - reserved_quantity) can be read at any time without a lock.
+ * Status changes are made before the stock UPDATE, whose flush writes them out (it clears the persistence context).
+ * An UPDATE that finds fewer units held than the reservation says means the two have drifted apart: it throws, so the
+ * status change rolls back instead of being recorded without its stock.
+ */
+@Service
+public class ReservationService {
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockMetrics stockMetrics;
+    private final HotStockAggregator hotStock;
+    private final LowStockTracker lowStock;
+
+    @Value("${inventory.reservations.default-ttl:PT15M}")
+    private Duration defaultTtl;
+
+    @Value("${inventory.reservations.max-ttl:PT1H}")
+    private Duration maxTtl;
+
+    @Value("${inventory.reservations.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    @Autowired
+    public ReservationService(ProductRepository productRepository, StockReservationRepository reservationRepository,
+                              TransactionTemplate transactionTemplate, StockMetrics stockMetrics,
+                              HotStockAggregator hotStock, LowStockTracker lowStock) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stockMetrics = stockMetrics;
+        this.hotStock = hotStock;
+        this.lowStock = lowStock;
+    }
+
+    // Empty when the product does not exist
+    @Transactional
+    public Optional<StockReservation> reserve(Long productId, int amount, Duration ttl) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Reservation amount must be positive");
+        }
+        Duration holdFor = ttl == null ? defaultTtl : ttl;
+        if (holdFor.isNegative() || holdFor.isZero() || holdFor.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("Reservation ttl must be between 1 second and " + maxTtl.toSeconds() + " seconds");
+        }
+        Timer.Sample sample = stockMetrics.start();
+        // Confirms and releases never reduce what is available, so only placing a hold needs the hot counter locked
+        hotStock.lockForUpdate(List.of(productId));
+        if (productRepository.reserveStock(productId, amount) == 0) {
+            Optional<Product> product = productRepository.findById(productId);
+            if (product.isEmpty()) {
+                stockMetrics.record(sample, "reserve", "not_found");
+                return Optional.empty();
+            }
+            stockMetrics.record(sample, "reserve", "insufficient_stock");
+            throw new IllegalArgumentException("Not enough stock for product " + product.get().getName());
+        }
+        StockReservation reservation = reservationRepository.save(new StockReservation(productId, amount, Instant.now().plus(holdFor)));
+        stockMetrics.record(sample, "reserve", "success");
+        return Optional.of(reservation);
+    }
+
+    public Optional<StockReservation> getReservation(Long reservationId) {
+        return reservationRepository.findById(reservationId);
+    }
+
+    // Turns the hold into a sale; empty when the reservation does not exist
+    // An expired hold is marked EXPIRED even though the call is rejected
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Optional<StockReservation> confirm(Long reservationId) {
+        Timer.Sample sample = stockMetrics.start();
+        return reservationRepository.findByIdForUpdate(reservationId).map(reservation -> {
+            expireIfDue(reservation);
+            requireActive(reservation, sample, "confirm");
+            reservation.setStatus(StockReservation.Status.CONFIRMED);
+            if (productRepository.commitReservedStock(reservation.getProductId(), reservation.getQuantity()) == 0) {
+                stockMetrics.record(sample, "confirm", "not_held");
+                throw notHeld(reservation.getProductId(), reservation.getQuantity());
+            }
+            productRepository.findById(reservation.getProductId()).ifPresent(lowStock::update);
+            stockMetrics.record(sample, "confirm", "success");
+            return reservation;
+        });
+    }
+
+    // Gives the held units back; empty when the reservation does not exist
+    // An expired hold is marked EXPIRED even though the call is rejected
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Optional<StockReservation> release(Long reservationId) {
+        Timer.Sample sample = stockMetrics.start();
+        return reservationRepository.findByIdForUpdate(reservationId).map(reservation -> {
+            expireIfDue(reservation);
+            requireActive(reservation, sample, "release");
+            reservation.setStatus(StockReservation.Status.RELEASED);
+            releaseHeldStock(reservation.getProductId(), reservation.getQuantity());
+            stockMetrics.record(sample, "release", "success");
+            return reservation;
+        });
+    }
+
+    /**
+     * Releases expired holds in batches of {@code sweep-batch-size}, one transaction per batch and one UPDATE
+     * per product per batch. Returns the number of reservations expired.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-interval:PT10S}")
+    public int releaseExpiredReservations() {
+        int total = 0;
+        int expired;
+        do {
+            expired = transactionTemplate.execute(status -> expireBatch(Instant.now()));
+            total += expired;
+        } while (expired == sweepBatchSize);
+        return total;
+    }
+
+    private int expireBatch(Instant now) {
+        List<StockReservation> expired = reservationRepository.findExpiredForUpdate(
+                StockReservation.Status.ACTIVE, now, Limit.of(sweepBatchSize));
+        Map<Long, Integer> heldByProduct = expired.stream()
+                .collect(Collectors.groupingBy(StockReservation::getProductId, Collectors.summingInt(StockReservation::getQuantity)));
+        expired.forEach(reservation -> reservation.setStatus(StockReservation.Status.EXPIRED));
+        heldByProduct.forEach(this::releaseHeldStock);
+        stockMetrics.count("expire", "success", expired.size());
+        return expired.size();
+    }
+
+    private void expireIfDue(StockReservation reservation) {
+        if (reservation.isExpired(Instant.now())) {
+            reservation.setStatus(StockReservation.Status.EXPIRED);
+            releaseHeldStock(reservation.getProductId(), reservation.getQuantity());
+            stockMetrics.count("expire", "success", 1);
+        }
+    }
+
+    // Holds on a deleted product have nothing left to give back
+    private void releaseHeldStock(Long productId, int quantity) {
+        if (productRepository.releaseReservedStock(productId, quantity) == 0 && productRepository.existsById(productId)) {
+            throw notHeld(productId, quantity);
+        }
+    }
+
+    private static IllegalStateException notHeld(Long productId, int quantity) {
+        return new IllegalStateException("Product " + productId + " does not hold the " + quantity + " reserved units");
+    }
+
+    private void requireActive(StockReservation reservation, Timer.Sample sample, String operation) {
+        if (reservation.getStatus() != StockReservation.Status.ACTIVE) {
+            stockMetrics.record(sample, operation, reservation.getStatus().name().toLowerCase());
+            throw new IllegalArgumentException("Reservation " + reservation.getId() + " is " + reservation.getStatus());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.inventory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * One change to a product's quantity in stock. Rows are only ever inserted, in the same transaction as the change
+ * they record, so the ledger is the full history behind Product.quantityInStock. On PostgreSQL the table is
+ * partitioned by month of occurredAt (see StockLedgerPartitions).
+ */
+@Entity
+@Immutable
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_product_id_occurred_at", columnList = "productId, occurredAt"),
+        @Index(name = "idx_stock_movements_occurred_at", columnList = "occurredAt")
+})
+public class StockLedgerEntry {
+
+    public enum Reason {
+        CREATED,
+        SALE,
+        RESTOCK,
+        BATCH,
+        ADJUSTMENT,
+        RESERVATION,
+        HOT_FLUSH,
+        PURCHASE_ORDER
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Reason reason;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    public StockLedgerEntry() {
+    }
+
+    public StockLedgerEntry(Long productId, long delta, Reason reason) {
+        this.productId = productId;
+        this.delta = delta;
+        this.reason = reason;
+        this.occurredAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getDelta() {
+        return delta;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
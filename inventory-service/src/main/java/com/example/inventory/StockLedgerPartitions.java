@@ -0,0 +1,68 @@
+package com.example.inventory;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps monthly partitions of the stock ledger ({@code stock_movements}) created ahead of the clock. The table is
+ * only partitioned on PostgreSQL, by the {@code V11__partition_stock_movements} migration; elsewhere this does
+ * nothing. Movements for a month without a partition land in the default partition and are moved into the month's
+ * partition when it is created.
+ */
+@Component
+public class StockLedgerPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerPartitions.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private volatile boolean partitioned;
+
+    @Autowired
+    public StockLedgerPartitions(JdbcTemplate jdbcTemplate,
+                                 @Value("${inventory.stock-ledger.partition-months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @PostConstruct
+    public void detect() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        partitioned = "PostgreSQL".equals(database);
+    }
+
+    /**
+     * Creates the partitions from this month through {@code partition-months-ahead} months from now that do not
+     * exist yet. Returns the number created.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock-ledger.partition-interval:PT12H}")
+    public int createPartitions() {
+        if (!partitioned) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        try {
+            Integer created = jdbcTemplate.queryForObject("SELECT create_stock_movements_partitions(?, ?)", Integer.class,
+                    Timestamp.from(now), Timestamp.from(now.plus(31L * monthsAhead, ChronoUnit.DAYS)));
+            if (created != null && created > 0) {
+                log.info("Created {} stock ledger partitions", created);
+            }
+            return created == null ? 0 : created;
+        } catch (RuntimeException e) {
+            // Typically another instance creating the same partitions; the next run catches up
+            log.warn("Creating stock ledger partitions failed: {}", e.toString());
+            return 0;
+        }
+    }
+}
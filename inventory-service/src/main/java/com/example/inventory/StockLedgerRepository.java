@@ -0,0 +1,34 @@
+package com.example.inventory;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockLedgerRepository extends JpaRepository<StockLedgerEntry, Long> {
+
+    List<StockLedgerEntry> findByProductIdAndIdGreaterThanOrderByIdAsc(Long productId, Long id, Limit limit);
+
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM StockLedgerEntry m " +
+            "WHERE m.productId = :productId AND m.occurredAt >= :from AND m.occurredAt < :to")
+    long sumDeltas(@Param("productId") Long productId, @Param("from") Instant from, @Param("to") Instant to);
+
+    // Net change per product over [from, to); each row is {productId, sum of deltas}
+    @Query("SELECT m.productId, SUM(m.delta) FROM StockLedgerEntry m " +
+            "WHERE m.occurredAt >= :from AND m.occurredAt < :to GROUP BY m.productId")
+    List<Object[]> sumDeltasByProduct(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("SELECT DISTINCT m.productId FROM StockLedgerEntry m WHERE m.occurredAt >= :from AND m.occurredAt < :to")
+    List<Long> findProductIdsMovedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Works back from the current quantity; one statement, so the quantity and the movements are read consistently
+    @Query("SELECT p.quantityInStock - COALESCE((SELECT SUM(m.delta) FROM StockLedgerEntry m " +
+            "WHERE m.productId = p.id AND m.occurredAt >= :at), 0) FROM Product p WHERE p.id = :productId")
+    Optional<Long> findQuantityAt(@Param("productId") Long productId, @Param("at") Instant at);
+}
@@ -0,0 +1,123 @@
+package com.example.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads of the stock ledger ({@code stock_movements}) and the compactor that keeps its snapshots up to date.
+ * <p>
+ * Snapshots are taken incrementally: each run sums only the movements since the previous run, per product, and adds
+ * them to that product's latest snapshot. Runs stop {@code settle-delay} short of now, so a movement whose
+ * transaction is still in flight when its timestamp is passed is not left out of a snapshot. Stock at any time T is
+ * then the nearest snapshot plus or minus the movements between it and T, never a scan of the whole history.
+ */
+@Service
+public class StockLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private final StockLedgerRepository ledgerRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.stock-ledger.settle-delay:PT1M}")
+    private Duration settleDelay;
+
+    @Value("${inventory.stock-ledger.snapshot-batch-size:500}")
+    private int snapshotBatchSize;
+
+    @Autowired
+    public StockLedgerService(StockLedgerRepository ledgerRepository, StockSnapshotRepository snapshotRepository,
+                              TransactionTemplate transactionTemplate) {
+        this.ledgerRepository = ledgerRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // One keyset page of a product's movements, oldest first
+    public List<StockLedgerEntry> getMovements(Long productId, Long after, int pageSize) {
+        return ledgerRepository.findByProductIdAndIdGreaterThanOrderByIdAsc(productId, after == null ? 0L : after, Limit.of(pageSize));
+    }
+
+    /**
+     * Quantity in stock just before {@code at}; empty when the product does not exist and was never snapshotted.
+     * Stock written behind for hot products counts from the moment it is flushed.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getStockAt(Long productId, Instant at) {
+        Optional<StockSnapshot> before = snapshotRepository.findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(productId, at);
+        if (before.isPresent()) {
+            return Optional.of(before.get().getQuantity() + ledgerRepository.sumDeltas(productId, before.get().getAsOf(), at));
+        }
+        Optional<StockSnapshot> after = snapshotRepository.findFirstByProductIdAndAsOfGreaterThanOrderByAsOfAsc(productId, at);
+        if (after.isPresent()) {
+            return Optional.of(after.get().getQuantity() - ledgerRepository.sumDeltas(productId, at, after.get().getAsOf()));
+        }
+        return ledgerRepository.findQuantityAt(productId, at);
+    }
+
+    /**
+     * Snapshots every product that has moved since the last run, as of now minus the settle delay, in one
+     * transaction. Returns the number of snapshots taken.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock-ledger.snapshot-interval:PT1M}")
+    public int compactSnapshots() {
+        Instant asOf = Instant.now().minus(settleDelay);
+        try {
+            return transactionTemplate.execute(status -> compact(asOf));
+        } catch (RuntimeException e) {
+            // Typically another instance snapshotting the same products; the next run catches up
+            log.warn("Stock snapshot compaction as of {} failed: {}", asOf, e.toString());
+            return 0;
+        }
+    }
+
+    private int compact(Instant asOf) {
+        Instant from = snapshotRepository.findLatestAsOf().orElse(Instant.EPOCH);
+        if (!from.isBefore(asOf)) {
+            return 0;
+        }
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Object[] row : ledgerRepository.sumDeltasByProduct(from, asOf)) {
+            deltas.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        List<Long> productIds = new ArrayList<>(deltas.keySet());
+        List<StockSnapshot> snapshots = new ArrayList<>(productIds.size());
+        for (int start = 0; start < productIds.size(); start += snapshotBatchSize) {
+            List<Long> batch = productIds.subList(start, Math.min(start + snapshotBatchSize, productIds.size()));
+            Map<Long, StockSnapshot> latest = snapshotRepository.findLatestByProductIdIn(batch).stream()
+                    .collect(Collectors.toMap(StockSnapshot::getProductId, Function.identity()));
+            for (Long productId : batch) {
+                StockSnapshot previous = latest.get(productId);
+                if (previous != null) {
+                    // No movements between the previous snapshot and 'from', or that run would have snapshotted them
+                    snapshots.add(new StockSnapshot(productId, asOf, previous.getQuantity() + deltas.get(productId)));
+                } else {
+                    // First snapshot of this product: work back from its current quantity
+                    ledgerRepository.findQuantityAt(productId, asOf)
+                            .ifPresent(quantity -> snapshots.add(new StockSnapshot(productId, asOf, quantity)));
+                }
+            }
+        }
+        snapshotRepository.saveAll(snapshots);
+        log.debug("Took {} stock snapshots as of {}", snapshots.size(), asOf);
+        return snapshots.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timer {@code inventory.stock.mutations}, tagged with the operation (decrease, increase, batch, reserve, ...) and
+ * its outcome (success, insufficient_stock, not_found, not_owner, rejected, error, ...), so both latency and the rate
+ * of refused sales can be alerted on. Product ids are deliberately not a tag: one time series per SKU would not scale.
+ */
+@Component
+public class StockMetrics {
+
+    static final String STOCK_MUTATIONS = "inventory.stock.mutations";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public StockMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void record(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder(STOCK_MUTATIONS)
+                .description("Stock mutations by operation and outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    // For sweeps that act on many reservations at once
+    public void count(String operation, String outcome, int amount) {
+        meterRegistry.counter(STOCK_MUTATIONS + ".items", "operation", operation, "outcome", outcome).increment(amount);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.inventory;
+
+// One line of a batch stock request: a positive delta restocks, a negative delta sells
+public class StockMovement {
+    private Long productId;
+    private Integer delta;
+
+    public StockMovement() {
+    }
+
+    public StockMovement(Long productId, Integer delta) {
+        this.productId = productId;
+        this.delta = delta;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
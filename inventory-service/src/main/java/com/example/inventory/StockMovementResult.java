@@ -0,0 +1,59 @@
+package com.example.inventory;
+
+// Outcome of one line of a batch stock request, reported in request order
+public class StockMovementResult {
+
+    public enum Status {
+        APPLIED,
+        NOT_APPLIED,
+        NOT_FOUND,
+        INSUFFICIENT_STOCK
+    }
+
+    private Long productId;
+    private Integer delta;
+    private Status status;
+    private Integer quantityInStock;
+
+    public StockMovementResult() {
+    }
+
+    public StockMovementResult(Long productId, Integer delta, Status status, Integer quantityInStock) {
+        this.productId = productId;
+        this.delta = delta;
+        this.status = status;
+        this.quantityInStock = quantityInStock;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getQuantityInStock() {
+        return quantityInStock;
+    }
+
+    public void setQuantityInStock(Integer quantityInStock) {
+        this.quantityInStock = quantityInStock;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.inventory;
+
+// In cluster mode: the product is hot and its stock is held in memory by another replica, which must serve the write
+public class StockOwnedElsewhereException extends RuntimeException {
+
+    private final Long productId;
+
+    public StockOwnedElsewhereException(Long productId) {
+        super("Stock of hot product " + productId + " is managed by another instance");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.inventory;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+// A time-bounded hold on units of a product; while ACTIVE its quantity counts towards Product.reservedQuantity
+@Entity
+@Table(name = "stock_reservations", indexes = @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status, expiresAt"))
+public class StockReservation {
+
+    public enum Status {
+        ACTIVE,
+        CONFIRMED,
+        RELEASED,
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long productId;
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private Instant createdAt;
+    private Instant expiresAt;
+
+    public StockReservation() {
+    }
+
+    public StockReservation(Long productId, Integer quantity, Instant expiresAt) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.status = Status.ACTIVE;
+        this.createdAt = Instant.now();
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return status == Status.ACTIVE && expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.inventory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+// A product's quantity in stock as of a point in time: the sum of every ledger movement that occurred before asOf
+@Entity
+@Immutable
+@Table(name = "stock_snapshots", indexes = @Index(name = "idx_stock_snapshots_product_id_as_of", columnList = "productId, asOf", unique = true))
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Instant asOf;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    public StockSnapshot() {
+    }
+
+    public StockSnapshot(Long productId, Instant asOf, long quantity) {
+        this.productId = productId;
+        this.asOf = asOf;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Instant getAsOf() {
+        return asOf;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(Long productId, Instant asOf);
+
+    Optional<StockSnapshot> findFirstByProductIdAndAsOfGreaterThanOrderByAsOfAsc(Long productId, Instant asOf);
+
+    @Query("SELECT MAX(s.asOf) FROM StockSnapshot s")
+    Optional<Instant> findLatestAsOf();
+
+    @Query("SELECT s FROM StockSnapshot s WHERE s.productId IN :productIds " +
+            "AND s.asOf = (SELECT MAX(l.asOf) FROM StockSnapshot l WHERE l.productId = s.productId)")
+    List<StockSnapshot> findLatestByProductIdIn(@Param("productIds") Collection<Long> productIds);
+}
@@ -0,0 +1,131 @@
+package com.example.inventory;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded, size- and time-evicted cache of supplier lookups keyed by supplierId.
+ * Found suppliers live for {@code supplier.cache.ttl}; suppliers that supplier-service reported as
+ * missing are cached as empty for the much shorter {@code supplier.cache.negative-ttl}.
+ * <p>
+ * A lookup in flight is cached as its future, so concurrent lookups of one supplier share a single load, and
+ * {@link #evict} removes it like any other entry: the load still completes for whoever is waiting on it, but its
+ * result is not cached. A change reported while a supplier is being fetched is therefore never lost.
+ */
+@Component
+public class SupplierCache {
+
+    private final AsyncCache<Long, Optional<SupplierDTO>> cache;
+
+    @Autowired
+    public SupplierCache(@Value("${supplier.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${supplier.cache.ttl:10m}") Duration ttl,
+                         @Value("${supplier.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<SupplierDTO>>() {
+                    @Override
+                    public long expireAfterCreate(Long supplierId, Optional<SupplierDTO> supplier, long currentTime) {
+                        return (supplier.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long supplierId, Optional<SupplierDTO> supplier, long currentTime, long currentDuration) {
+                        return expireAfterCreate(supplierId, supplier, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long supplierId, Optional<SupplierDTO> supplier, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached lookup, or runs the loader and caches its result. A loader that throws
+     * (supplier-service down, timeout) leaves nothing behind, so only definitive answers are cached.
+     */
+    public Optional<SupplierDTO> get(Long supplierId, Function<Long, Optional<SupplierDTO>> loader) {
+        CompletableFuture<Optional<SupplierDTO>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<SupplierDTO>> cached = cache.get(supplierId, (id, executor) -> created);
+        if (cached == created) {
+            // The loader blocks, so it runs here rather than inside the cache's compute
+            try {
+                created.complete(loader.apply(supplierId));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+        }
+        return join(cached);
+    }
+
+    /**
+     * Bulk variant of {@link #get}: the ids that are not cached are handed to the loader in one call.
+     * The loader must return an entry for every id it was given, empty for suppliers that do not exist.
+     */
+    public Map<Long, Optional<SupplierDTO>> getAll(Collection<Long> supplierIds,
+                                                   Function<Set<Long>, Map<Long, Optional<SupplierDTO>>> loader) {
+        return join(cache.getAll(supplierIds, (missing, executor) -> {
+            try {
+                return CompletableFuture.completedFuture(loader.apply(Set.copyOf(missing)));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }));
+    }
+
+    /**
+     * Non-blocking variant of {@link #get} for the reactive read path. On a miss the loader is subscribed to; it
+     * completes empty for a supplier that does not exist, and an error leaves nothing behind, as with {@link #get}.
+     */
+    public Mono<SupplierDTO> getAsync(Long supplierId, Function<Long, Mono<SupplierDTO>> loader) {
+        // A subscriber that cancels must not cancel the load that other lookups may be waiting on
+        return Mono.defer(() -> Mono.fromFuture(cache.get(supplierId, (id, executor) -> loader.apply(id)
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty())
+                                .toFuture()), true))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public void evict(Long supplierId) {
+        cache.synchronous().invalidate(supplierId);
+    }
+
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    // Hit, miss and eviction counters since startup
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    // Rethrows a failed load as the loader threw it
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
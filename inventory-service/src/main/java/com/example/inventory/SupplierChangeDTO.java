@@ -0,0 +1,41 @@
+package com.example.inventory;
+
+// One entry of supplier-service's change feed (GET /api/suppliers/changes)
+public class SupplierChangeDTO {
+    private Long id;
+    private Long supplierId;
+    private String changeType;
+
+    public SupplierChangeDTO() {
+    }
+
+    public SupplierChangeDTO(Long id, Long supplierId, String changeType) {
+        this.id = id;
+        this.supplierId = supplierId;
+        this.changeType = changeType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+}
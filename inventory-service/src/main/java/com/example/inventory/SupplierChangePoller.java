@@ -0,0 +1,91 @@
+package com.example.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Polls supplier-service's change feed and evicts the affected entries from {@link SupplierCache},
+ * so cached suppliers can be kept for a long TTL without going stale. The next lookup reloads them.
+ * <p>
+ * Change ids are assigned when an event is inserted, not when it commits, so an event can become visible after one
+ * with a higher id has been read. Each poll therefore re-reads from a cursor that trails {@code settle-delay} behind:
+ * every event is evicted as soon as it is seen, and the cursor only moves past it once it has been known for the
+ * settle delay, by when any event inserted before it has committed too. Events seen before are not evicted again.
+ */
+@Component
+public class SupplierChangePoller {
+
+    private static final Logger log = LoggerFactory.getLogger(SupplierChangePoller.class);
+
+    private final SupplierClient supplierClient;
+    private final SupplierCache supplierCache;
+
+    @Value("${supplier.changes.batch-size:500}")
+    private int batchSize;
+
+    @Value("${supplier.changes.settle-delay:PT10S}")
+    private Duration settleDelay;
+
+    // Every event up to this id has been seen and has settled
+    private volatile long lastSeenChangeId;
+    // Events after the cursor that have been seen, with the System.nanoTime() they were first seen at
+    private final Map<Long, Long> unsettledChanges = new TreeMap<>();
+
+    @Autowired
+    public SupplierChangePoller(SupplierClient supplierClient, SupplierCache supplierCache) {
+        this.supplierClient = supplierClient;
+        this.supplierCache = supplierCache;
+    }
+
+    @Scheduled(fixedDelayString = "${supplier.changes.poll-interval:PT5S}")
+    public synchronized void poll() {
+        try {
+            long after = lastSeenChangeId;
+            List<SupplierChangeDTO> changes;
+            do {
+                changes = supplierClient.getChanges(after, batchSize).block();
+                if (changes == null) {
+                    break;
+                }
+                for (SupplierChangeDTO change : changes) {
+                    if (unsettledChanges.putIfAbsent(change.getId(), System.nanoTime()) == null) {
+                        supplierCache.evict(change.getSupplierId());
+                    }
+                    after = change.getId();
+                }
+            } while (changes.size() == batchSize);
+        } catch (Exception e) {
+            // Supplier service unavailable; keep the cursor and retry on the next tick
+            log.warn("Error polling supplier changes after {}: {}", lastSeenChangeId, e.toString());
+        }
+        settle();
+    }
+
+    // Moves the cursor over the oldest seen events, in id order, as far as they have all settled
+    private void settle() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, Long>> changes = unsettledChanges.entrySet().iterator();
+        while (changes.hasNext()) {
+            Map.Entry<Long, Long> change = changes.next();
+            if (now - change.getValue() < settleDelay.toNanos()) {
+                break;
+            }
+            lastSeenChangeId = change.getKey();
+            changes.remove();
+        }
+    }
+
+    long getLastSeenChangeId() {
+        return lastSeenChangeId;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.inventory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking client for supplier-service. Every HTTP attempt is bounded by {@code attempt-timeout} and retried
+ * with jittered backoff on transient failures; the whole call, retries and backoff included, is bounded by
+ * {@code total-timeout} and guarded by a circuit breaker. While the breaker is open calls fail immediately with
+ * {@link CallNotPermittedException}.
+ * A 404 is a definitive answer, not a failure: it completes empty and does not count against the breaker.
+ * <p>
+ * Each logical call, including its retries, is timed as {@code supplier.client.requests} tagged with the operation
+ * and outcome; the individual HTTP attempts are recorded separately by WebClient as {@code http.client.requests}.
+ * <p>
+ * Single-supplier reads are conditional: the last ETag and body seen for each supplier are kept in a bounded
+ * validator cache and sent back as {@code If-None-Match}, so an unchanged supplier costs a bodiless 304. Each answer
+ * to a conditional GET is counted as {@code supplier.client.revalidations} tagged {@code not_modified} or
+ * {@code modified}.
+ */
+@Component
+public class SupplierClient {
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration attemptTimeout;
+    private final Duration totalTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Long, Validator> validators;
+
+    @Autowired
+    public SupplierClient(WebClient supplierWebClient, CircuitBreaker supplierCircuitBreaker,
+                          @Value("${supplier.client.attempt-timeout:1s}") Duration attemptTimeout,
+                          @Value("${supplier.client.total-timeout:3s}") Duration totalTimeout,
+                          @Value("${supplier.client.max-retries:2}") int maxRetries,
+                          @Value("${supplier.client.retry-backoff:100ms}") Duration retryBackoff,
+                          @Value("${supplier.client.validator-cache-size:10000}") long validatorCacheSize,
+                          MeterRegistry meterRegistry) {
+        this.webClient = supplierWebClient;
+        this.circuitBreaker = supplierCircuitBreaker;
+        this.attemptTimeout = attemptTimeout;
+        this.totalTimeout = totalTimeout;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.meterRegistry = meterRegistry;
+        this.validators = Caffeine.newBuilder().maximumSize(validatorCacheSize).build();
+    }
+
+    public Mono<SupplierDTO> getSupplier(Long supplierId) {
+        // Deferred so that a retry sends the validator current at that point
+        return call("get", Mono.defer(() -> {
+            Validator validator = validators.getIfPresent(supplierId);
+            return webClient.get()
+                    .uri("/{id}", supplierId)
+                    .headers(headers -> {
+                        if (validator != null) {
+                            headers.setIfNoneMatch(validator.eTag());
+                        }
+                    })
+                    .exchangeToMono(response -> {
+                        if (validator != null && response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                            recordRevalidation("not_modified");
+                            return response.releaseBody().thenReturn(validator.supplier());
+                        }
+                        if (response.statusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+                            validators.invalidate(supplierId);
+                            return response.releaseBody().then(Mono.empty());
+                        }
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.createError();
+                        }
+                        if (validator != null) {
+                            recordRevalidation("modified");
+                        }
+                        String eTag = response.headers().asHttpHeaders().getETag();
+                        return response.bodyToMono(SupplierDTO.class).doOnNext(supplier -> {
+                            if (eTag != null) {
+                                validators.put(supplierId, new Validator(eTag, supplier));
+                            } else {
+                                validators.invalidate(supplierId);
+                            }
+                        });
+                    });
+        }));
+    }
+
+    public Mono<List<SupplierDTO>> getSuppliers(Collection<Long> supplierIds) {
+        return call("get_many", webClient.get()
+                .uri(uriBuilder -> uriBuilder.queryParam("ids", supplierIds).build())
+                .retrieve()
+                .bodyToFlux(SupplierDTO.class)
+                .collectList());
+    }
+
+    public Mono<List<SupplierChangeDTO>> getChanges(long after, int limit) {
+        return call("changes", webClient.get()
+                .uri("/changes?after={after}&limit={limit}", after, limit)
+                .retrieve()
+                .bodyToFlux(SupplierChangeDTO.class)
+                .collectList());
+    }
+
+    // Safe to retry: supplier-service returns the existing order when the reference has been used before
+    public Mono<PurchaseOrderDTO> createPurchaseOrder(PurchaseOrderDTO order) {
+        return call("create_purchase_order", webClient.post()
+                .uri("/purchase-orders")
+                .bodyValue(order)
+                .retrieve()
+                .bodyToMono(PurchaseOrderDTO.class));
+    }
+
+    public Mono<List<PurchaseOrderReceiptDTO>> getPurchaseOrderReceipts(long after, int limit) {
+        return call("purchase_order_receipts", webClient.get()
+                .uri("/purchase-orders/receipts?after={after}&limit={limit}", after, limit)
+                .retrieve()
+                .bodyToFlux(PurchaseOrderReceiptDTO.class)
+                .collectList());
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> Mono<T> call(String operation, Mono<T> request) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return request
+                    .timeout(attemptTimeout)
+                    .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                            .jitter(0.5)
+                            .filter(SupplierClient::isTransient)
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .timeout(totalTimeout)
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                    .doOnSuccess(result -> record(sample, operation, result == null ? "not_found" : "success"))
+                    .doOnError(e -> record(sample, operation, outcome(e)));
+        });
+    }
+
+    private void record(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder("supplier.client.requests")
+                .description("Calls to supplier-service, including retries")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private void recordRevalidation(String outcome) {
+        meterRegistry.counter("supplier.client.revalidations", "outcome", outcome).increment();
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof CallNotPermittedException) {
+            return "circuit_open";
+        }
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+        }
+        if (e instanceof WebClientRequestException) {
+            return "io_error";
+        }
+        return "error";
+    }
+
+    private static boolean isTransient(Throwable e) {
+        return e instanceof WebClientRequestException
+                || e instanceof TimeoutException
+                || (e instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError());
+    }
+
+    private record Validator(String eTag, SupplierDTO supplier) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.inventory;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+// Wiring for the supplier-service client: a dedicated connection pool, timeouts and a circuit breaker
+@Configuration
+public class SupplierClientConfig {
+
+    // Bounds concurrent calls to supplier-service: at most max-connections in flight and
+    // max-pending-acquires waiting for a connection; anything beyond that fails immediately.
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supplierConnectionProvider(
+            @Value("${supplier.client.max-connections:50}") int maxConnections,
+            @Value("${supplier.client.max-pending-acquires:200}") int maxPendingAcquires,
+            @Value("${supplier.client.pending-acquire-timeout:500ms}") Duration pendingAcquireTimeout,
+            @Value("${supplier.client.max-idle-time:30s}") Duration maxIdleTime) {
+        return ConnectionProvider.builder("supplier-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient supplierWebClient(WebClient.Builder webClientBuilder,
+                                       ConnectionProvider supplierConnectionProvider,
+                                       @Value("${supplier.service.url}") String supplierServiceUrl,
+                                       @Value("${supplier.client.connect-timeout:1s}") Duration connectTimeout,
+                                       @Value("${supplier.client.read-timeout:2s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create(supplierConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return webClientBuilder
+                .baseUrl(supplierServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${supplier.client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${supplier.client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${supplier.client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${supplier.client.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker supplierCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker("supplier-service");
+    }
+}
@@ -0,0 +1,15 @@
+-- Write-behind flushes of hot products, per journal: every instance numbers its journal entries on its own, so the
+-- sequence up to which entries have been applied is kept per product and journal rather than on the product row.
+-- A row is active while that journal's instance aggregates the product; another instance may only take the product
+-- over once no other journal has it active, i.e. once everything sold from that journal has been written out.
+CREATE TABLE hot_stock_flushes (
+    product_id bigint NOT NULL REFERENCES products (id) ON DELETE CASCADE,
+    journal_id varchar(64) NOT NULL,
+    flushed_sequence bigint DEFAULT 0 NOT NULL,
+    active boolean DEFAULT false NOT NULL,
+    CONSTRAINT pk_hot_stock_flushes PRIMARY KEY (product_id, journal_id)
+);
+
+CREATE INDEX idx_hot_stock_flushes_journal_id ON hot_stock_flushes (journal_id);
+
+ALTER TABLE products DROP COLUMN hot_stock_seq;
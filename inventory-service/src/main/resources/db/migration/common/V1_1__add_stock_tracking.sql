@@ -0,0 +1,59 @@
+-- Stock tracking added before the schema was managed by Flyway. Databases baselined at V1 have none of it.
+
+ALTER TABLE products ADD COLUMN reorder_point integer;
+ALTER TABLE products ADD COLUMN reorder_quantity integer;
+ALTER TABLE products ADD COLUMN on_order_quantity integer DEFAULT 0 NOT NULL;
+ALTER TABLE products ADD COLUMN reserved_quantity integer DEFAULT 0 NOT NULL;
+ALTER TABLE products ADD COLUMN hot boolean DEFAULT false NOT NULL;
+ALTER TABLE products ADD COLUMN hot_stock_seq bigint DEFAULT 0 NOT NULL;
+
+CREATE INDEX idx_products_supplier_id_reorder_point ON products (supplier_id, reorder_point);
+
+CREATE TABLE stock_reservations (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id bigint,
+    quantity integer,
+    status varchar(255) CHECK (status IN ('ACTIVE', 'CONFIRMED', 'RELEASED', 'EXPIRED')),
+    created_at timestamp(6) with time zone,
+    expires_at timestamp(6) with time zone
+);
+
+CREATE INDEX idx_stock_reservations_status_expires_at ON stock_reservations (status, expires_at);
+
+CREATE TABLE stock_movements (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id bigint NOT NULL,
+    delta bigint NOT NULL,
+    reason varchar(20) NOT NULL
+        CHECK (reason IN ('CREATED', 'SALE', 'RESTOCK', 'BATCH', 'ADJUSTMENT', 'RESERVATION', 'HOT_FLUSH', 'PURCHASE_ORDER')),
+    occurred_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX idx_stock_movements_product_id_occurred_at ON stock_movements (product_id, occurred_at);
+CREATE INDEX idx_stock_movements_occurred_at ON stock_movements (occurred_at);
+
+CREATE TABLE stock_snapshots (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id bigint NOT NULL,
+    as_of timestamp(6) with time zone NOT NULL,
+    quantity bigint NOT NULL,
+    CONSTRAINT idx_stock_snapshots_product_id_as_of UNIQUE (product_id, as_of)
+);
+
+CREATE TABLE replenishment_orders (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    supplier_id bigint NOT NULL,
+    reference varchar(255) NOT NULL UNIQUE,
+    status varchar(255) CHECK (status IN ('PENDING', 'SUBMITTED', 'RECEIVED', 'REJECTED')),
+    purchase_order_id bigint,
+    receipt_id bigint,
+    created_at timestamp(6) with time zone
+);
+
+CREATE INDEX idx_replenishment_orders_status ON replenishment_orders (status);
+
+CREATE TABLE replenishment_order_lines (
+    replenishment_order_id bigint NOT NULL REFERENCES replenishment_orders (id),
+    product_id bigint NOT NULL,
+    quantity integer NOT NULL
+);
@@ -0,0 +1,10 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Existing databases are baselined at this version.
+
+CREATE TABLE products (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(255),
+    description varchar(255),
+    price float(53),
+    quantity_in_stock integer,
+    supplier_id bigint
+);
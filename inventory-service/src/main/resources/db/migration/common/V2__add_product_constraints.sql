@@ -0,0 +1,14 @@
+-- Backs the uniqueness that createProduct used to check with a separate query, and indexes the supplier lookup.
+-- Fails if existing rows already break a rule; clean those up before upgrading.
+
+CREATE UNIQUE INDEX uk_products_name ON products (name);
+CREATE INDEX idx_products_supplier_id ON products (supplier_id);
+
+ALTER TABLE products ADD CONSTRAINT chk_products_quantity_in_stock CHECK (quantity_in_stock >= 0);
+ALTER TABLE products ADD CONSTRAINT chk_products_reserved_quantity CHECK (reserved_quantity >= 0 AND reserved_quantity <= quantity_in_stock);
+ALTER TABLE products ADD CONSTRAINT chk_products_on_order_quantity CHECK (on_order_quantity >= 0);
+ALTER TABLE products ADD CONSTRAINT chk_products_reorder_point CHECK (reorder_point >= 0);
+ALTER TABLE products ADD CONSTRAINT chk_products_reorder_quantity CHECK (reorder_quantity > 0);
+ALTER TABLE products ADD CONSTRAINT chk_products_price CHECK (price >= 0);
+
+ALTER TABLE stock_reservations ADD CONSTRAINT chk_stock_reservations_quantity CHECK (quantity > 0);
@@ -0,0 +1,2 @@
+-- Product ids come from a sequence so that inserts can be batched. Each nextval reserves ID_ALLOCATION_SIZE ids.
+CREATE SEQUENCE products_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,11 @@
+-- Stock per warehouse location. products.quantity_in_stock remains the product's total, updated in the same
+-- transaction as every location row. Only locations other than the default one ('main', LocationStock.DEFAULT_LOCATION)
+-- have rows here; the default location holds whatever part of the total the rows do not account for, so existing
+-- single-site data needs no backfill.
+CREATE TABLE product_stock (
+    product_id bigint NOT NULL REFERENCES products (id) ON DELETE CASCADE,
+    location_id varchar(64) NOT NULL,
+    quantity integer DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_product_stock PRIMARY KEY (product_id, location_id),
+    CONSTRAINT chk_product_stock_quantity CHECK (quantity >= 0)
+);
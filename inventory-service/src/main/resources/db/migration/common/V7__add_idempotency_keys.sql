@@ -0,0 +1,12 @@
+-- Idempotency-Key store shared by all instances (inventory.idempotency.store=database). A row without a status code is
+-- a request still being processed; expired rows are purged in the background and may be reclaimed before that.
+CREATE TABLE idempotency_keys (
+    idempotency_key varchar(255) PRIMARY KEY,
+    fingerprint varchar(64) NOT NULL,
+    status_code integer,
+    content_type varchar(255),
+    response_body bytea,
+    expires_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,16 @@
+-- Cluster mode (inventory.cluster.enabled): live replicas and the stock shards each one holds a lease on.
+-- Products are hashed onto a fixed number of shards; a replica may only keep write-behind counters for hot products
+-- in shards whose lease it holds.
+CREATE TABLE cluster_members (
+    instance_id varchar(64) PRIMARY KEY,
+    base_url varchar(255) NOT NULL,
+    heartbeat_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE TABLE stock_shards (
+    shard_id integer PRIMARY KEY,
+    owner_id varchar(64),
+    lease_expires_at timestamp(6) with time zone
+);
+
+CREATE INDEX idx_stock_shards_owner_id ON stock_shards (owner_id);
@@ -0,0 +1,3 @@
+-- Row version: Hibernate checks it on entity updates, the stock UPDATEs increment it too, and the ETags of
+-- GET /api/products/{id} are derived from it
+ALTER TABLE products ADD COLUMN version bigint DEFAULT 0 NOT NULL;
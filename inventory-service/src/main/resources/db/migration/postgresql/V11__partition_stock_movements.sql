@@ -0,0 +1,61 @@
+-- Partitions the stock ledger by month of occurred_at, so old months can be detached or dropped as a whole instead of
+-- deleted row by row, and queries bounded by occurred_at only read the months they cover. Rows outside every monthly
+-- partition go to stock_movements_default. The table is rewritten once, under an exclusive lock.
+
+LOCK TABLE stock_movements IN ACCESS EXCLUSIVE MODE;
+ALTER TABLE stock_movements RENAME TO stock_movements_unpartitioned;
+DROP INDEX idx_stock_movements_product_id_occurred_at;
+DROP INDEX idx_stock_movements_occurred_at;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE stock_movements (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    product_id bigint NOT NULL,
+    delta bigint NOT NULL,
+    reason varchar(20) NOT NULL
+        CHECK (reason IN ('CREATED', 'SALE', 'RESTOCK', 'BATCH', 'ADJUSTMENT', 'RESERVATION', 'HOT_FLUSH', 'PURCHASE_ORDER')),
+    occurred_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+CREATE INDEX idx_stock_movements_product_id_occurred_at ON stock_movements (product_id, occurred_at);
+CREATE INDEX idx_stock_movements_occurred_at ON stock_movements (occurred_at);
+
+CREATE TABLE stock_movements_default PARTITION OF stock_movements DEFAULT;
+
+-- Creates the monthly partitions (stock_movements_yYYYYmMM, months in UTC) from the month of from_time through the
+-- month of to_time that do not exist yet, and returns how many it created. Rows already in the default partition
+-- for a new month are moved into it. StockLedgerPartitions calls this on a schedule to stay ahead of the clock.
+CREATE FUNCTION create_stock_movements_partitions(from_time timestamptz, to_time timestamptz) RETURNS integer AS $$
+DECLARE
+    month_start timestamptz := date_trunc('month', from_time AT TIME ZONE 'UTC') AT TIME ZONE 'UTC';
+    month_end timestamptz;
+    partition_name text;
+    created integer := 0;
+BEGIN
+    WHILE month_start <= to_time LOOP
+        month_end := month_start + interval '1 month';
+        partition_name := 'stock_movements_' || to_char(month_start AT TIME ZONE 'UTC', '"y"YYYY"m"MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE stock_movements INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+            EXECUTE format('WITH moved AS (DELETE FROM stock_movements_default WHERE occurred_at >= %L AND occurred_at < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+            EXECUTE format('ALTER TABLE stock_movements ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, month_end);
+            created := created + 1;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the months already in the ledger first, so the copy below goes straight into them
+SELECT create_stock_movements_partitions(COALESCE((SELECT MIN(occurred_at) FROM stock_movements_unpartitioned), now()),
+                                         now() + interval '3 months');
+
+INSERT INTO stock_movements (id, product_id, delta, reason, occurred_at)
+SELECT id, product_id, delta, reason, occurred_at FROM stock_movements_unpartitioned;
+SELECT setval(pg_get_serial_sequence('stock_movements', 'id'),
+              (SELECT COALESCE(MAX(id), 0) + 1 FROM stock_movements), false);
+DROP TABLE stock_movements_unpartitioned;
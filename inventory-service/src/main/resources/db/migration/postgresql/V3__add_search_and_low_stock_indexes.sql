@@ -0,0 +1,18 @@
+-- PostgreSQL-only indexes that Hibernate's schema generation could not express.
+
+-- Product search (ProductSearchRepositoryImpl): full text over name and description, and trigram similarity on the
+-- name for typos. Adding the stored column rewrites the products table once. CREATE EXTENSION needs a role that is
+-- allowed to create extensions.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS
+    (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING GIN (lower(name) gin_trgm_ops);
+
+-- Reorder candidates (findLowStock*, findReorderCandidates): only the few rows at or below their reorder point are
+-- indexed, so the index stays small however large the catalog is.
+DROP INDEX IF EXISTS idx_products_supplier_id_reorder_point;
+CREATE INDEX idx_products_low_stock ON products (supplier_id, id)
+    WHERE reorder_point IS NOT NULL AND quantity_in_stock <= reorder_point;
+CREATE INDEX idx_products_reorder_candidates ON products (id)
+    WHERE supplier_id IS NOT NULL AND reorder_point IS NOT NULL AND quantity_in_stock + on_order_quantity <= reorder_point;
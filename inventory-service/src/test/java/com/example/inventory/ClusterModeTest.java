@@ -0,0 +1,416 @@
+package com.example.inventory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs three replicas in cluster mode against one database and sells through all of them at once. Tests that stall or
+ * crash a replica start one of their own for it.
+ */
+class ClusterModeTest {
+
+    private static final int SHARDS = 32;
+
+    private static final List<ConfigurableApplicationContext> started = new ArrayList<>();
+    private static final List<ConfigurableApplicationContext> replicas = new ArrayList<>();
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    static Path journals;
+
+    @BeforeAll
+    static void startReplicas() {
+        for (int i = 0; i < 3; i++) {
+            replicas.add(startReplica(i));
+        }
+    }
+
+    // Replica i keeps its journal in a directory of its own, which a restart under the same number finds again
+    private static ConfigurableApplicationContext startReplica(int i, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:cluster_mode_db;DB_CLOSE_DELAY=-1",
+                // Each replica has a second-level cache of its own in production; here they would share one
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--inventory.idempotency.store=database",
+                "--inventory.hot-stock.enabled=true",
+                "--inventory.hot-stock.journal-dir=" + journals.resolve("replica-" + i),
+                "--inventory.cluster.enabled=true",
+                "--inventory.cluster.instance-id=replica-" + i,
+                "--inventory.cluster.advertised-host=localhost",
+                "--inventory.cluster.shards=" + SHARDS,
+                "--inventory.cluster.heartbeat-interval=PT0.2S",
+                "--inventory.cluster.lease-duration=PT2S"));
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext replica = new SpringApplicationBuilder(InventoryApplication.class)
+                .profiles("test")
+                // As arguments, so that they win over application.properties
+                .run(arguments.toArray(String[]::new));
+        started.add(replica);
+        return replica;
+    }
+
+    @AfterAll
+    static void stopReplicas() {
+        started.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void concurrentSalesThroughEveryReplica_shouldNeverOversell_evenWhenAReplicaLeaves() throws Exception {
+        long hotId = createProduct("Cluster Hot Widget", 100);
+        long plainId = createProduct("Cluster Plain Widget", 100);
+        assertEquals(200, send("PUT", replicas.get(0), "/api/products/" + hotId + "/hot", Map.of("hot", true)).statusCode());
+        awaitBalanced(replicas);
+        await(() -> replicas.stream().anyMatch(replica -> replica.getBean(HotStockAggregator.class).isHot(hotId)));
+
+        Map<Integer, AtomicInteger> hotResults = sell(hotId, 150, replicas);
+        Map<Integer, AtomicInteger> plainResults = sell(plainId, 150, replicas);
+
+        assertEquals(100, hotResults.get(200).get(), hotResults::toString);
+        assertEquals(50, hotResults.get(400).get(), hotResults::toString);
+        assertEquals(100, plainResults.get(200).get(), plainResults::toString);
+        assertEquals(50, plainResults.get(400).get(), plainResults::toString);
+        flushAll();
+        assertEquals(0, stockInDatabase(hotId));
+        assertEquals(0, stockInDatabase(plainId));
+        assertEquals(0, ledgerTotal(hotId));
+
+        // A replica leaves; its shards move to the other two, which keep selling without overselling. Closing its
+        // context would also shut down the Netty event loops that all replicas in this JVM share.
+        ConfigurableApplicationContext leaving = replicas.remove(2);
+        leaving.getBean(ClusterCoordinator.class).leave();
+        ((WebServerApplicationContext) leaving).getWebServer().stop();
+        awaitBalanced(replicas);
+        assertEquals(200, send("POST", replicas.get(0), "/api/products/" + hotId + "/increaseStock", Map.of("amount", 40)).statusCode());
+
+        Map<Integer, AtomicInteger> afterLeave = sell(hotId, 60, replicas);
+
+        assertEquals(40, afterLeave.get(200).get(), afterLeave::toString);
+        assertEquals(20, afterLeave.get(400).get(), afterLeave::toString);
+        flushAll();
+        assertEquals(0, stockInDatabase(hotId));
+        assertEquals(0, ledgerTotal(hotId));
+    }
+
+    @Test
+    void batchTouchingAnotherReplicasHotProduct_shouldBeMisdirected() throws Exception {
+        long hotId = createProduct("Cluster Batch Widget", 10);
+        assertEquals(200, send("PUT", replicas.get(0), "/api/products/" + hotId + "/hot", Map.of("hot", true)).statusCode());
+        awaitBalanced(replicas);
+        await(() -> replicas.stream().anyMatch(replica -> replica.getBean(HotStockAggregator.class).isHot(hotId)));
+        ConfigurableApplicationContext owner = replicas.stream()
+                .filter(replica -> replica.getBean(HotStockAggregator.class).isHot(hotId)).findFirst().orElseThrow();
+        ConfigurableApplicationContext other = replicas.stream().filter(replica -> replica != owner).findFirst().orElseThrow();
+
+        HttpResponse<String> misdirected = send("POST", other, "/api/products/stock/batch", List.of(Map.of("productId", hotId, "delta", -1)));
+        HttpResponse<String> applied = send("POST", owner, "/api/products/stock/batch", List.of(Map.of("productId", hotId, "delta", -1)));
+
+        assertEquals(421, misdirected.statusCode());
+        assertEquals(baseUrl(owner), misdirected.headers().firstValue(ClusterClient.OWNER_HEADER).orElseThrow());
+        assertEquals(200, applied.statusCode());
+        assertEquals(9, stockInDatabase(hotId));
+    }
+
+    @Test
+    void saleForwardedToASlowOwner_shouldBeMadeOnce_whenRetriedWithItsKey() throws Exception {
+        long hotId = createProduct("Cluster Slow Widget", 10);
+        assertEquals(200, send("PUT", replicas.get(0), "/api/products/" + hotId + "/hot", Map.of("hot", true)).statusCode());
+        awaitBalanced(replicas);
+        await(() -> replicas.stream().anyMatch(replica -> replica.getBean(HotStockAggregator.class).isHot(hotId)));
+        ConfigurableApplicationContext owner = replicas.stream()
+                .filter(replica -> replica.getBean(HotStockAggregator.class).isHot(hotId)).findFirst().orElseThrow();
+        ConfigurableApplicationContext other = replicas.stream().filter(replica -> replica != owner).findFirst().orElseThrow();
+        ClusterClient forwarder = other.getBean(ClusterClient.class);
+        Duration forwardTimeout = (Duration) ReflectionTestUtils.getField(forwarder, "timeout");
+
+        // The owner sits on the product's counter for a while, as it would behind a long flush. Only briefly, since
+        // it also holds up that replica's scheduled tasks, heartbeat included.
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> stall = executor.submit(() -> new TransactionTemplate(owner.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            owner.getBean(HotStockAggregator.class).lockForUpdate(List.of(hotId));
+            stalled.countDown();
+            try {
+                resume.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertTrue(stalled.await(10, TimeUnit.SECONDS));
+            ReflectionTestUtils.setField(forwarder, "timeout", Duration.ofMillis(300));
+
+            assertEquals(504, sellOnce(other, hotId, "slow-owner-sale").statusCode());
+            assertEquals(409, sellOnce(other, hotId, "slow-owner-sale").statusCode());
+        } finally {
+            ReflectionTestUtils.setField(forwarder, "timeout", forwardTimeout);
+            resume.countDown();
+            stall.get();
+            executor.shutdown();
+        }
+
+        AtomicReference<HttpResponse<String>> retried = new AtomicReference<>();
+        await(() -> {
+            try {
+                retried.set(sellOnce(other, hotId, "slow-owner-sale"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return retried.get().statusCode() != 409;
+        });
+        assertEquals(200, retried.get().statusCode());
+        assertEquals("true", retried.get().headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).orElseThrow());
+        flushAll();
+        assertEquals(9, stockInDatabase(hotId));
+    }
+
+    @Test
+    void ownerThatLosesItsLease_shouldFlushItsSalesLate_whileTheNewOwnerHoldsOff() throws Exception {
+        // Flushes only when made to, so that its sales are still pending when it stalls
+        ConfigurableApplicationContext stalling = startReplica(3, "--inventory.hot-stock.flush-interval=PT1H");
+        List<ConfigurableApplicationContext> members = new ArrayList<>(replicas);
+        members.add(stalling);
+        awaitBalanced(members);
+        long hotId = hotProductOwnedBy(stalling, "Cluster Stalling Widget", 10);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("POST", stalling, "/api/products/" + hotId + "/decreaseStock", Map.of("amount", 1)).statusCode());
+        }
+        assertEquals(10, stockInDatabase(hotId));
+
+        // The replica stalls, as in a long GC pause: its heartbeat waits on the coordinator and its lease runs out
+        ClusterCoordinator coordinator = stalling.getBean(ClusterCoordinator.class);
+        int shard = coordinator.shardOf(hotId);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> stall = executor.submit(() -> {
+            synchronized (coordinator) {
+                stalled.countDown();
+                resume.await(30, TimeUnit.SECONDS);
+            }
+            return null;
+        });
+        try {
+            assertTrue(stalled.await(10, TimeUnit.SECONDS));
+            await(() -> replicas.stream().anyMatch(replica -> replica.getBean(ClusterCoordinator.class).getOwnedShards().contains(shard)));
+            ConfigurableApplicationContext newOwner = replicas.stream()
+                    .filter(replica -> replica.getBean(ClusterCoordinator.class).getOwnedShards().contains(shard)).findFirst().orElseThrow();
+
+            // The row does not have the stalled replica's sales yet: selling from it could oversell
+            assertEquals(503, send("POST", newOwner, "/api/products/" + hotId + "/decreaseStock", Map.of("amount", 1)).statusCode());
+            assertFalse(newOwner.getBean(HotStockAggregator.class).isHot(hotId));
+        } finally {
+            resume.countDown();
+            stall.get();
+            executor.shutdown();
+        }
+
+        // Its next heartbeat finds the lease gone and writes the sales out late
+        await(() -> stockInDatabase(hotId) == 7);
+        coordinator.leave();
+        ((WebServerApplicationContext) stalling).getWebServer().stop();
+        awaitBalanced(replicas);
+        awaitHotOnItsOwner(replicas, hotId);
+
+        Map<Integer, AtomicInteger> results = sell(hotId, 10, replicas);
+
+        assertEquals(7, results.get(200).get(), results::toString);
+        assertEquals(3, results.get(400).get(), results::toString);
+        flushAll();
+        assertEquals(0, stockInDatabase(hotId));
+        assertEquals(0, ledgerTotal(hotId));
+    }
+
+    @Test
+    void ownerThatCrashes_shouldReplayItsJournalOnRestart_beforeTheProductIsSoldElsewhere() throws Exception {
+        ConfigurableApplicationContext crashing = startReplica(4, "--inventory.hot-stock.flush-interval=PT1H");
+        List<ConfigurableApplicationContext> members = new ArrayList<>(replicas);
+        members.add(crashing);
+        awaitBalanced(members);
+        long hotId = hotProductOwnedBy(crashing, "Cluster Crashing Widget", 10);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("POST", crashing, "/api/products/" + hotId + "/decreaseStock", Map.of("amount", 1)).statusCode());
+        }
+
+        // The process dies: no more heartbeats or flushes, and its sales are only in its journal. Without interrupting
+        // a task that is running, which could leave the shared database connection half way through a statement.
+        ScheduledThreadPoolExecutor scheduler = crashing.getBean(ThreadPoolTaskScheduler.class).getScheduledThreadPoolExecutor();
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+        ((WebServerApplicationContext) crashing).getWebServer().stop();
+        int shard = crashing.getBean(ClusterCoordinator.class).shardOf(hotId);
+        await(() -> replicas.stream().anyMatch(replica -> replica.getBean(ClusterCoordinator.class).getOwnedShards().contains(shard)));
+        ConfigurableApplicationContext newOwner = replicas.stream()
+                .filter(replica -> replica.getBean(ClusterCoordinator.class).getOwnedShards().contains(shard)).findFirst().orElseThrow();
+
+        assertEquals(503, send("POST", newOwner, "/api/products/" + hotId + "/decreaseStock", Map.of("amount", 1)).statusCode());
+        assertEquals(10, stockInDatabase(hotId));
+
+        // Restarted on the same machine, it replays the journal before it joins
+        ConfigurableApplicationContext restarted = startReplica(4);
+        assertEquals(7, stockInDatabase(hotId));
+        members = new ArrayList<>(replicas);
+        members.add(restarted);
+        try {
+            awaitBalanced(members);
+            awaitHotOnItsOwner(members, hotId);
+
+            Map<Integer, AtomicInteger> results = sell(hotId, 10, members);
+
+            assertEquals(7, results.get(200).get(), results::toString);
+            assertEquals(3, results.get(400).get(), results::toString);
+            members.forEach(replica -> replica.getBean(HotStockAggregator.class).flushAll());
+            assertEquals(0, stockInDatabase(hotId));
+            assertEquals(0, ledgerTotal(hotId));
+        } finally {
+            restarted.getBean(ClusterCoordinator.class).leave();
+            ((WebServerApplicationContext) restarted).getWebServer().stop();
+            awaitBalanced(replicas);
+        }
+    }
+
+    // Creates products until one lands in a shard the replica holds, and flags it hot
+    private static long hotProductOwnedBy(ConfigurableApplicationContext replica, String name, int quantity) throws Exception {
+        ClusterCoordinator coordinator = replica.getBean(ClusterCoordinator.class);
+        for (int i = 0; i < 100; i++) {
+            long productId = createProduct(name + " " + i, quantity);
+            if (coordinator.getOwnedShards().contains(coordinator.shardOf(productId))) {
+                assertEquals(200, send("PUT", replicas.get(0), "/api/products/" + productId + "/hot", Map.of("hot", true)).statusCode());
+                await(() -> replica.getBean(HotStockAggregator.class).isHot(productId));
+                return productId;
+            }
+        }
+        throw new IllegalStateException(name + " never landed on the replica");
+    }
+
+    // Sends the sales round-robin over the replicas from several threads and counts the responses by status
+    private static Map<Integer, AtomicInteger> sell(long productId, int requests, List<ConfigurableApplicationContext> targets) throws Exception {
+        Map<Integer, AtomicInteger> results = new ConcurrentHashMap<>(Map.of(200, new AtomicInteger(), 400, new AtomicInteger()));
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                ConfigurableApplicationContext target = targets.get(i % targets.size());
+                futures.add(executor.submit(() -> {
+                    int status = send("POST", target, "/api/products/" + productId + "/decreaseStock", Map.of("amount", 1)).statusCode();
+                    results.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    private static HttpResponse<String> sellOnce(ConfigurableApplicationContext replica, long productId, String idempotencyKey) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl(replica) + "/api/products/" + productId + "/decreaseStock"))
+                .header("Content-Type", "application/json")
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"amount\": 1}"))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long createProduct(String name, int quantity) throws Exception {
+        HttpResponse<String> response = send("POST", replicas.get(0), "/api/products",
+                Map.of("name", name, "price", 1.0, "quantityInStock", quantity));
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode product = objectMapper.readTree(response.body());
+        return product.get("id").asLong();
+    }
+
+    private static HttpResponse<String> send(String method, ConfigurableApplicationContext replica, String path, Object body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl(replica) + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext replica) {
+        return "http://localhost:" + ((WebServerApplicationContext) replica).getWebServer().getPort();
+    }
+
+    // Every shard is held, by the replica the ring assigns it to
+    private static void awaitBalanced(List<ConfigurableApplicationContext> members) throws InterruptedException {
+        await(() -> {
+            List<ClusterCoordinator> coordinators = members.stream().map(replica -> replica.getBean(ClusterCoordinator.class)).toList();
+            return coordinators.stream().allMatch(coordinator -> !coordinator.getOwnedShards().isEmpty())
+                    && coordinators.stream().mapToInt(coordinator -> coordinator.getOwnedShards().size()).sum() == SHARDS
+                    && jdbc().queryForObject("SELECT COUNT(*) FROM cluster_members", Integer.class) == members.size();
+        });
+    }
+
+    // Every replica's ring assigns the product to the same replica, which has loaded it. Balanced shards are not enough
+    // while a replica rejoins: the others only see it once they have had a heartbeat since.
+    private static void awaitHotOnItsOwner(List<ConfigurableApplicationContext> members, long productId) throws InterruptedException {
+        await(() -> members.stream().anyMatch(owner -> owner.getBean(HotStockAggregator.class).isHot(productId)
+                && members.stream().allMatch(replica -> replica.getBean(ClusterCoordinator.class).ownerUrl(productId)
+                        .filter(baseUrl(owner)::equals).isPresent())));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the cluster");
+            Thread.sleep(50);
+        }
+    }
+
+    private static void flushAll() {
+        replicas.forEach(replica -> replica.getBean(HotStockAggregator.class).flushAll());
+    }
+
+    private static int stockInDatabase(long productId) {
+        return jdbc().queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private static long ledgerTotal(long productId) {
+        return jdbc().queryForObject("SELECT SUM(delta) FROM stock_movements WHERE product_id = ?", Long.class, productId);
+    }
+
+    private static JdbcTemplate jdbc() {
+        return replicas.get(0).getBean(JdbcTemplate.class);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:hot_stock_db;DB_CLOSE_DELAY=-1",
+        "inventory.hot-stock.enabled=true",
+        // Flushes are triggered by the tests
+        "inventory.hot-stock.flush-interval=PT1H",
+        "inventory.hot-stock.flush-max-operations=1000000"
+})
+@ActiveProfiles("test")
+class HotStockAggregatorTest {
+
+    private static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        journalDirectory = Files.createTempDirectory("hot-stock-journal");
+        registry.add("inventory.hot-stock.journal-dir", journalDirectory::toString);
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private HotStockAggregator hotStock;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hotProduct_shouldNeverOversell_andWriteSalesBehindInOneUpdate() throws Exception {
+        Long productId = hotProduct("Hot Flash Sale", 1000);
+
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 250; j++) {
+                    try {
+                        inventoryService.decreaseStock(productId, 1);
+                        sold.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // Sold out
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 50; j++) {
+                    inventoryService.increaseStock(productId, 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Every unit sold was in stock at the time: 1000 initial plus 400 restocked
+        int remaining = 1400 - sold.get();
+        assertTrue(remaining >= 0);
+        assertEquals(1000, stockInDatabase(productId));
+        assertEquals(remaining, inventoryService.getProductById(productId).orElseThrow().getQuantityInStock());
+
+        assertTrue(hotStock.flush(productId));
+
+        assertEquals(remaining, stockInDatabase(productId));
+        assertEquals(0, hotStock.pendingDelta(productId));
+    }
+
+    @Test
+    void reserve_shouldFlushPendingSalesFirst() {
+        Long productId = hotProduct("Hot Reserved", 10);
+        inventoryService.decreaseStock(productId, 6);
+
+        reservationService.reserve(productId, 4, null).orElseThrow();
+
+        assertEquals(4, stockInDatabase(productId));
+        assertThrows(IllegalArgumentException.class, () -> reservationService.reserve(productId, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.decreaseStock(productId, 1));
+    }
+
+    @Test
+    void lockForUpdate_shouldFlushInTheCallersTransaction_andKeepTheDeltaIfItRollsBack() {
+        Long productId = hotProduct("Hot Rolled Back", 10);
+        inventoryService.decreaseStock(productId, 3);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            hotStock.lockForUpdate(List.of(productId));
+            assertEquals(7, jdbcTemplate.queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, productId));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(10, stockInDatabase(productId));
+        assertEquals(-3, hotStock.pendingDelta(productId));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.decreaseStock(productId, 8));
+        assertTrue(hotStock.flush(productId));
+        assertEquals(7, stockInDatabase(productId));
+    }
+
+    @Test
+    void recover_shouldReplayUnflushedJournalEntriesExactlyOnce() throws Exception {
+        Long productId = hotProduct("Hot Crash", 100);
+        inventoryService.decreaseStock(productId, 3);
+        inventoryService.decreaseStock(productId, 2);
+        assertEquals(100, stockInDatabase(productId));
+
+        // A restart that finds the journal of a process that died before flushing
+        Path copy = Files.createTempDirectory("hot-stock-journal-copy");
+        try (var segments = Files.list(journalDirectory)) {
+            for (Path segment : segments.toList()) {
+                Files.copy(segment, copy.resolve(segment.getFileName()));
+            }
+        }
+        HotStockAggregator restarted = new HotStockAggregator(productRepository, jdbcTemplate, transactionManager, meterRegistry,
+                true, copy, false, 1000, false);
+        restarted.recover();
+        restarted.shutdown();
+
+        assertEquals(95, stockInDatabase(productId));
+
+        // The original flush covers the same journal sequences, so it must not apply them again
+        hotStock.flush(productId);
+        assertEquals(95, stockInDatabase(productId));
+    }
+
+    @Test
+    void unflagging_shouldWritePendingStockAndFallBackToTheDatabase() {
+        Long productId = hotProduct("Hot Then Cold", 20);
+        inventoryService.decreaseStock(productId, 5);
+
+        Product product = inventoryService.setHot(productId, false);
+
+        assertFalse(product.isHot());
+        assertFalse(hotStock.isHot(productId));
+        assertEquals(15, stockInDatabase(productId));
+        assertEquals(14, inventoryService.decreaseStock(productId, 1).getQuantityInStock());
+    }
+
+    private Long hotProduct(String name, int stock) {
+        Product product = productRepository.save(new Product(name, "Promotion", 10.0, stock, 1L));
+        assertTrue(inventoryService.setHot(product.getId(), true).isHot());
+        return product.getId();
+    }
+
+    private int stockInDatabase(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+}
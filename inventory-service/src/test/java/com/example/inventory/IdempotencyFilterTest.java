@@ -0,0 +1,92 @@
+package com.example.inventory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyStore store = new IdempotencyStore("memory", Duration.ofHours(1), Duration.ofMinutes(1), 100, null);
+    private final IdempotencyFilter filter = new IdempotencyFilter(store, new SimpleMeterRegistry());
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void retry_shouldReplayTheStoredResponseWithoutRunningAgain() throws Exception {
+        FilterChain chain = (request, response) -> {
+            assertEquals("{\"amount\":5}", new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"quantityInStock\":" + (10 - 5 * calls.incrementAndGet()) + "}");
+        };
+
+        MockHttpServletResponse first = send("key-1", "/api/products/1/decreaseStock", "{\"amount\":5}", chain);
+        MockHttpServletResponse retry = send("key-1", "/api/products/1/decreaseStock", "{\"amount\":5}", chain);
+
+        assertEquals(1, calls.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals("{\"quantityInStock\":5}", first.getContentAsString());
+        assertEquals("{\"quantityInStock\":5}", retry.getContentAsString());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void failedRequest_shouldReleaseTheKeySoThatARetryRuns() throws Exception {
+        FilterChain chain = (request, response) -> ((HttpServletResponse) response).setStatus(calls.incrementAndGet() == 1 ? 400 : 200);
+
+        assertEquals(400, send("key-2", "/api/products/1/increaseStock", "{\"amount\":5}", chain).getStatus());
+        assertEquals(200, send("key-2", "/api/products/1/increaseStock", "{\"amount\":5}", chain).getStatus());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void reusedKey_shouldBeRejected_whenTheRequestDiffersOrIsStillRunning() throws Exception {
+        FilterChain chain = (request, response) -> {
+            calls.incrementAndGet();
+            // A retry of the same request arrives while this one is still running
+            assertEquals(409, send("key-3", "/api/products/1/decreaseStock", "{\"amount\":5}", (req, res) -> fail()).getStatus());
+        };
+
+        send("key-3", "/api/products/1/decreaseStock", "{\"amount\":5}", chain);
+
+        assertEquals(422, send("key-3", "/api/products/1/decreaseStock", "{\"amount\":6}", chain).getStatus());
+        assertEquals(422, send("key-3", "/api/products/2/decreaseStock", "{\"amount\":5}", chain).getStatus());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void requestsWithoutAKeyOrToOtherPaths_shouldAlwaysRun() throws Exception {
+        FilterChain chain = (request, response) -> calls.incrementAndGet();
+
+        send(null, "/api/products/1/decreaseStock", "{\"amount\":5}", chain);
+        send(null, "/api/products/1/decreaseStock", "{\"amount\":5}", chain);
+        send("key-4", "/api/products/import", "name\nBolt\n", chain);
+        send("key-4", "/api/products/import", "name\nBolt\n", chain);
+
+        assertEquals(4, calls.get());
+        assertEquals(400, send(" ", "/api/products", "{}", chain).getStatus());
+    }
+
+    private MockHttpServletResponse send(String key, String path, String body, FilterChain chain) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.inventory;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InventoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The JCache regions are shared by every test context in the JVM; see SecondLevelCacheTest
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void getProductById_shouldAnswerAMatchingIfNoneMatchWith304_fromTheCache() throws Exception {
+        Product product = inventoryService.createProduct(new Product("Conditional Product", "Description", 10.0, 10, null));
+
+        String etag = mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + product.getVersion() + "\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+
+        mockMvc.perform(get("/api/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        inventoryService.increaseStock(product.getId(), 5);
+        mockMvc.perform(get("/api/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (product.getVersion() + 1) + "\""));
+    }
+
+    @Test
+    void updateProduct_shouldReturnConflict_whenRenamingToATakenName() throws Exception {
+        inventoryService.createProduct(new Product("Conflict Taken Product", "Description", 10.0, 10, null));
+        Product renamed = inventoryService.createProduct(new Product("Conflict Renamed Product", "Description", 10.0, 10, null));
+
+        mockMvc.perform(put("/api/products/{id}", renamed.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Conflict Taken Product\",\"description\":\"Description\",\"price\":10.0,\"quantityInStock\":10}"))
+                .andExpect(status().isConflict());
+    }
+}
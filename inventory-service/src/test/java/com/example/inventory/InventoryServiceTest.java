@@ -1,14 +1,23 @@
 package com.example.inventory;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
-
+import org.mockito.Spy;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,7 +28,27 @@ class InventoryServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private RestTemplate restTemplate;
+    private SupplierClient supplierClient;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private HotStockAggregator hotStock;
+
+    @Mock
+    private StockLedgerRepository stockLedger;
+
+    @Mock
+    private LowStockTracker lowStock;
+
+    @Spy
+    private SupplierCache supplierCache = new SupplierCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private StockMetrics stockMetrics = new StockMetrics(meterRegistry);
 
     @InjectMocks
     private InventoryService inventoryService;
@@ -27,19 +56,18 @@ class InventoryServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        ReflectionTestUtils.setField(inventoryService, "supplierServiceUrl", "http://localhost:8082/api/suppliers");
     }
 
     @Test
     void createProduct_shouldReturnSavedProduct() {
         Product product = new Product("Test Product", "Description", 10.0, 100, 1L);
-        when(productRepository.save(product)).thenReturn(product);
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
 
         Product createdProduct = inventoryService.createProduct(product);
 
         assertNotNull(createdProduct);
         assertEquals("Test Product", createdProduct.getName());
-        verify(productRepository, times(1)).save(product);
+        verify(productRepository, times(1)).saveAndFlush(product);
     }
 
     @Test
@@ -65,6 +93,32 @@ class InventoryServiceTest {
         verify(productRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getProducts_shouldReadOneKeysetPage() {
+        Product product = new Product("Test Product", "Description", 10.0, 100, 1L);
+        product.setId(11L);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(1))).thenReturn(List.of(product));
+
+        List<Product> page = inventoryService.getProducts(10L, 1);
+
+        assertEquals(List.of(product), page);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void exportProducts_shouldDetachEachProductOnceConsumed() {
+        Product first = new Product("First", "Description", 10.0, 100, 1L);
+        Product second = new Product("Second", "Description", 10.0, 100, 1L);
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+        List<Product> exported = new ArrayList<>();
+
+        inventoryService.exportProducts(exported::add);
+
+        assertEquals(List.of(first, second), exported);
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+    }
+
     @Test
     void updateProduct_shouldReturnUpdatedProduct_whenFound() {
         Product existingProduct = new Product("Old Name", "Old Desc", 5.0, 50, 1L);
@@ -81,6 +135,7 @@ class InventoryServiceTest {
         assertEquals(150, result.getQuantityInStock());
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(stockLedger, times(1)).save(argThat(entry -> entry.getDelta() == 100 && entry.getReason() == StockLedgerEntry.Reason.ADJUSTMENT));
     }
 
     @Test
@@ -99,22 +154,24 @@ class InventoryServiceTest {
 
     @Test
     void decreaseStock_shouldReduceQuantity() {
-        Product product = new Product("Test Product", "Description", 10.0, 100, 1L);
+        Product product = new Product("Test Product", "Description", 10.0, 90, 1L);
         product.setId(1L);
+        when(productRepository.decreaseStockIfAvailable(1L, 10)).thenReturn(1);
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(productRepository.save(any(Product.class))).thenReturn(product);
 
         Product updatedProduct = inventoryService.decreaseStock(1L, 10);
 
         assertEquals(90, updatedProduct.getQuantityInStock());
-        verify(productRepository, times(1)).findById(1L);
-        verify(productRepository, times(1)).save(any(Product.class));
+        verify(productRepository, times(1)).decreaseStockIfAvailable(1L, 10);
+        verify(productRepository, never()).save(any(Product.class));
+        assertEquals(1, stockMutations("decrease", "success"));
     }
 
     @Test
     void decreaseStock_shouldThrowException_whenInsufficientStock() {
         Product product = new Product("Test Product", "Description", 10.0, 5, 1L);
         product.setId(1L);
+        when(productRepository.decreaseStockIfAvailable(1L, 10)).thenReturn(0);
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
 
         assertThrows(IllegalArgumentException.class, () -> {
@@ -122,20 +179,79 @@ class InventoryServiceTest {
         });
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, never()).save(any(Product.class));
+        assertEquals(1, stockMutations("decrease", "insufficient_stock"));
+        assertEquals(0, stockMutations("decrease", "success"));
+    }
+
+    @Test
+    void decreaseStock_shouldThrowException_whenNotFound() {
+        when(productRepository.decreaseStockIfAvailable(1L, 10)).thenReturn(0);
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            inventoryService.decreaseStock(1L, 10);
+        });
+
+        assertEquals("Product not found with id 1", exception.getMessage());
+        assertEquals(1, stockMutations("decrease", "not_found"));
+    }
+
+    @Test
+    void decreaseStock_shouldRecordError_whenTheUpdateFails() {
+        when(productRepository.decreaseStockIfAvailable(1L, 10)).thenThrow(new QueryTimeoutException("Lock wait timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> inventoryService.decreaseStock(1L, 10));
+
+        assertEquals(1, stockMutations("decrease", "error"));
+        assertEquals(0, stockMutations("decrease", "not_found"));
     }
 
     @Test
     void increaseStock_shouldIncreaseQuantity() {
-        Product product = new Product("Test Product", "Description", 10.0, 100, 1L);
+        Product product = new Product("Test Product", "Description", 10.0, 110, 1L);
         product.setId(1L);
+        when(productRepository.increaseStock(1L, 10)).thenReturn(1);
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(productRepository.save(any(Product.class))).thenReturn(product);
 
         Product updatedProduct = inventoryService.increaseStock(1L, 10);
 
         assertEquals(110, updatedProduct.getQuantityInStock());
-        verify(productRepository, times(1)).findById(1L);
-        verify(productRepository, times(1)).save(any(Product.class));
+        verify(productRepository, times(1)).increaseStock(1L, 10);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void applyStockMovements_shouldApplyAllLines_whenEveryLineSucceeds() {
+        Product first = new Product("First", "Description", 10.0, 10, 1L);
+        first.setId(1L);
+        Product second = new Product("Second", "Description", 10.0, 5, 1L);
+        second.setId(2L);
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(first, second));
+
+        List<StockMovementResult> results = inventoryService.applyStockMovements(List.of(
+                new StockMovement(2L, -5), new StockMovement(1L, 3), new StockMovement(1L, -13)));
+
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == StockMovementResult.Status.APPLIED));
+        assertEquals(0, results.get(2).getQuantityInStock());
+        assertEquals(0, first.getQuantityInStock());
+        assertEquals(0, second.getQuantityInStock());
+        verify(productRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void applyStockMovements_shouldApplyNothing_whenAnyLineFails() {
+        Product product = new Product("First", "Description", 10.0, 10, 1L);
+        product.setId(1L);
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(product));
+
+        List<StockMovementResult> results = inventoryService.applyStockMovements(List.of(
+                new StockMovement(1L, -4), new StockMovement(1L, -7), new StockMovement(3L, 1)));
+
+        assertEquals(StockMovementResult.Status.NOT_APPLIED, results.get(0).getStatus());
+        assertEquals(StockMovementResult.Status.INSUFFICIENT_STOCK, results.get(1).getStatus());
+        assertEquals(StockMovementResult.Status.NOT_FOUND, results.get(2).getStatus());
+        assertEquals(10, product.getQuantityInStock());
+        verify(productRepository, never()).saveAll(any());
     }
 
     @Test
@@ -154,24 +270,88 @@ class InventoryServiceTest {
         supplierDTO.setId(supplierId);
         supplierDTO.setName("Mock Supplier");
 
-        when(restTemplate.getForObject(anyString(), eq(SupplierDTO.class))).thenReturn(supplierDTO);
+        when(supplierClient.getSupplier(supplierId)).thenReturn(Mono.just(supplierDTO));
 
         Optional<SupplierDTO> result = inventoryService.getSupplierDetails(supplierId);
 
         assertTrue(result.isPresent());
         assertEquals(supplierId, result.get().getId());
         assertEquals("Mock Supplier", result.get().getName());
-        verify(restTemplate, times(1)).getForObject("http://localhost:8082/api/suppliers/1", SupplierDTO.class);
+        verify(supplierClient, times(1)).getSupplier(1L);
     }
 
     @Test
     void getSupplierDetails_shouldReturnEmpty_whenNotFound() {
         Long supplierId = 1L;
-        when(restTemplate.getForObject(anyString(), eq(SupplierDTO.class))).thenReturn(null);
+        when(supplierClient.getSupplier(supplierId)).thenReturn(Mono.empty());
 
         Optional<SupplierDTO> result = inventoryService.getSupplierDetails(supplierId);
 
         assertFalse(result.isPresent());
-        verify(restTemplate, times(1)).getForObject("http://localhost:8082/api/suppliers/1", SupplierDTO.class);
+        verify(supplierClient, times(1)).getSupplier(1L);
+    }
+
+    @Test
+    void getSupplierDetails_shouldServeRepeatedLookupsFromCache() {
+        SupplierDTO supplierDTO = new SupplierDTO();
+        supplierDTO.setId(1L);
+        when(supplierClient.getSupplier(1L)).thenReturn(Mono.just(supplierDTO));
+
+        inventoryService.getSupplierDetails(1L);
+        Optional<SupplierDTO> result = inventoryService.getSupplierDetails(1L);
+
+        assertTrue(result.isPresent());
+        verify(supplierClient, times(1)).getSupplier(1L);
+        assertEquals(1, supplierCache.stats().hitCount());
+        assertEquals(1, supplierCache.stats().missCount());
+    }
+
+    @Test
+    void getSupplierDetails_shouldCacheNotFound() {
+        when(supplierClient.getSupplier(1L)).thenReturn(Mono.empty());
+
+        assertFalse(inventoryService.getSupplierDetails(1L).isPresent());
+        assertFalse(inventoryService.getSupplierDetails(1L).isPresent());
+
+        verify(supplierClient, times(1)).getSupplier(1L);
+    }
+
+    @Test
+    void getSupplierDetails_shouldNotCacheFailures() {
+        when(supplierClient.getSupplier(1L)).thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+        assertFalse(inventoryService.getSupplierDetails(1L).isPresent());
+        assertFalse(inventoryService.getSupplierDetails(1L).isPresent());
+
+        verify(supplierClient, times(2)).getSupplier(1L);
+    }
+
+    @Test
+    void getProductsWithSuppliers_shouldResolveAllSuppliersInOneCall() {
+        Product first = new Product("First", "Description", 10.0, 100, 1L);
+        first.setId(1L);
+        Product second = new Product("Second", "Description", 10.0, 100, 2L);
+        second.setId(2L);
+        Product third = new Product("Third", "Description", 10.0, 100, 1L);
+        third.setId(3L);
+        SupplierDTO supplierDTO = new SupplierDTO();
+        supplierDTO.setId(1L);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(10))).thenReturn(List.of(first, second, third));
+        when(supplierClient.getSuppliers(Set.of(1L, 2L))).thenReturn(Mono.just(List.of(supplierDTO)));
+
+        List<ProductWithSupplier> page = inventoryService.getProductsWithSuppliers(null, 10);
+        inventoryService.getProductsWithSuppliers(null, 10);
+
+        assertEquals(3, page.size());
+        assertEquals(1L, page.get(0).getSupplier().getId());
+        assertNull(page.get(1).getSupplier());
+        assertEquals(1L, page.get(2).getSupplier().getId());
+        verify(supplierClient, times(1)).getSuppliers(Set.of(1L, 2L));
+        verify(supplierClient, never()).getSupplier(anyLong());
+    }
+
+    private long stockMutations(String operation, String outcome) {
+        return meterRegistry.find(StockMetrics.STOCK_MUTATIONS).tag("operation", operation).tag("outcome", outcome).timers()
+                .stream().mapToLong(timer -> timer.count()).sum();
     }
 }
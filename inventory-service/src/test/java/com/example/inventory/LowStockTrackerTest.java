@@ -0,0 +1,121 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:low_stock_db;DB_CLOSE_DELAY=-1",
+        // Refreshes are triggered by the tests
+        "inventory.low-stock.refresh-interval=PT1H",
+        "inventory.hot-stock.enabled=true",
+        // Hot stock is only ever read with its pending delta applied
+        "inventory.hot-stock.flush-interval=PT1H"
+})
+@ActiveProfiles("test")
+class LowStockTrackerTest {
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        Path journalDirectory = Files.createTempDirectory("hot-stock-journal");
+        registry.add("inventory.hot-stock.journal-dir", journalDirectory::toString);
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stockMutations_shouldKeepTheLiveSetCurrent() {
+        Long productId = product("Tracked Bolt", 12, 10, 70L);
+        assertFalse(isLive(productId, 70L));
+
+        inventoryService.decreaseStock(productId, 3);
+        assertTrue(isLive(productId, 70L));
+        assertEquals(9, item(productId).quantityInStock());
+
+        inventoryService.increaseStock(productId, 5);
+        assertFalse(isLive(productId, 70L));
+
+        inventoryService.applyStockMovements(List.of(new StockMovement(productId, -10)));
+        assertTrue(isLive(productId, 70L));
+
+        inventoryService.deleteProduct(productId);
+        assertFalse(isLive(productId, 70L));
+    }
+
+    @Test
+    void hotProductSales_shouldKeepItInTheLiveSet() {
+        Long productId = product("Hot Rivet", 12, 10, 74L);
+        inventoryService.setHot(productId, true);
+
+        inventoryService.decreaseStock(productId, 3);
+        assertTrue(isLive(productId, 74L));
+        assertEquals(9, item(productId).quantityInStock());
+
+        inventoryService.decreaseStock(productId, 1);
+        assertTrue(isLive(productId, 74L));
+        assertEquals(8, item(productId).quantityInStock());
+    }
+
+    @Test
+    void lowStockQuery_shouldOnlyReturnProductsAtOrBelowTheirReorderPoint() {
+        Long low = product("Low Nut", 5, 5, 71L);
+        Long healthy = product("Healthy Nut", 6, 5, 71L);
+        Long otherSupplier = product("Low Washer", 0, 5, 72L);
+        Long noReorderPoint = product("Unmanaged Nut", 0, null, 71L);
+
+        List<Long> forSupplier = inventoryService.getLowStockProducts(71L, null, 100).stream().map(Product::getId).toList();
+        List<Long> all = inventoryService.getLowStockProducts(null, null, 100).stream().map(Product::getId).toList();
+
+        assertEquals(List.of(low), forSupplier);
+        assertTrue(all.containsAll(List.of(low, otherSupplier)));
+        assertFalse(all.contains(healthy));
+        assertFalse(all.contains(noReorderPoint));
+        assertEquals(List.of(otherSupplier), lowStockTracker.getItems(72L).stream().map(LowStockTracker.Item::productId).toList());
+    }
+
+    @Test
+    void refresh_shouldPickUpChangesMadeOutsideThisInstance() {
+        Long productId = product("Remote Gear", 50, 10, 73L);
+
+        // As written by another instance
+        jdbcTemplate.update("UPDATE products SET quantity_in_stock = 2 WHERE id = ?", productId);
+        assertFalse(isLive(productId, 73L));
+
+        lowStockTracker.refresh();
+
+        assertTrue(isLive(productId, 73L));
+        assertEquals(2, item(productId).quantityInStock());
+    }
+
+    private Long product(String name, int stock, Integer reorderPoint, Long supplierId) {
+        Product product = new Product(name, "Fasteners", 1.0, stock, supplierId);
+        product.setReorderPoint(reorderPoint);
+        return inventoryService.createProduct(product).getId();
+    }
+
+    private boolean isLive(Long productId, Long supplierId) {
+        return lowStockTracker.getItems(supplierId).stream().anyMatch(item -> item.productId().equals(productId));
+    }
+
+    private LowStockTracker.Item item(Long productId) {
+        return lowStockTracker.getItems(null).stream().filter(item -> item.productId().equals(productId)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:product_import_db;DB_CLOSE_DELAY=-1",
+        "inventory.import.chunk-size=3"
+})
+@ActiveProfiles("test")
+class ProductImportTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedgerRepository stockLedgerRepository;
+
+    @Test
+    void importCsv_shouldImportValidRowsAndReportTheRest() throws Exception {
+        inventoryService.createProduct(new Product("Csv Existing", null, 1.0, 1, null));
+        String csv = """
+                name,description,price,quantityInStock,supplierId,reorderPoint
+                Csv Washer,"Flat, zinc",0.05,500,7,100
+                Csv Existing,,1.0,1,,
+                Csv Spring,,abc,5,,
+                Csv Washer,,0.05,1,,
+                Csv Clip,,0.10,-1,,
+                ,,1.0,1,,
+                Csv Pin,,0.02,0,,
+                """;
+
+        ImportReport report = productImportService.importCsv(stream(csv));
+
+        assertEquals(7, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(5, report.getRejected());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), report.getErrors().stream().map(ImportReport.RowError::row).sorted().toList());
+
+        Product washer = product("Csv Washer");
+        assertEquals("Flat, zinc", washer.getDescription());
+        assertEquals(500, washer.getQuantityInStock());
+        assertEquals(7L, washer.getSupplierId());
+        assertEquals(100, washer.getReorderPoint());
+        List<StockLedgerEntry> movements = stockLedgerRepository.findByProductIdAndIdGreaterThanOrderByIdAsc(washer.getId(), 0L, Limit.of(10));
+        assertEquals(1, movements.size());
+        assertEquals(StockLedgerEntry.Reason.CREATED, movements.get(0).getReason());
+        assertTrue(stockLedgerRepository.findByProductIdAndIdGreaterThanOrderByIdAsc(product("Csv Pin").getId(), 0L, Limit.of(10)).isEmpty());
+    }
+
+    @Test
+    void importNdjson_shouldAssignIdsThatDoNotCollideWithLaterCreates() throws Exception {
+        String ndjson = IntStream.rangeClosed(1, 120)
+                .mapToObj(i -> "{\"name\":\"Json Item " + i + "\",\"price\":1.5,\"quantityInStock\":" + i + "}")
+                .collect(Collectors.joining("\n", "", "\n{not json}\n"));
+
+        ImportReport report = productImportService.importNdjson(stream(ndjson));
+
+        assertEquals(121, report.getReceived());
+        assertEquals(120, report.getImported());
+        assertEquals(121L, report.getErrors().get(0).row());
+
+        Product created = inventoryService.createProduct(new Product("Json Created", null, 1.0, 1, null));
+        assertEquals(121, productRepository.findAll().stream()
+                .filter(p -> p.getName().startsWith("Json ")).map(Product::getId).distinct().count());
+        assertEquals("Json Created", productRepository.findById(created.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void createProduct_shouldRejectNamesTakenByTheImport() throws Exception {
+        productImportService.importNdjson(stream("{\"name\":\"Taken Name\",\"quantityInStock\":1}"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.createProduct(new Product("Taken Name", null, 1.0, 1, null)));
+        assertEquals("Product with name Taken Name already exists", e.getMessage());
+    }
+
+    private Product product(String name) {
+        return productRepository.findAll().stream().filter(p -> name.equals(p.getName())).findFirst().orElseThrow();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:product_location_stock_db;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ProductLocationStockTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Test
+    void locatedStockChanges_shouldKeepTheTotalAndTheLocationsInStep() {
+        Long productId = inventoryService.createProduct(new Product("Located Widget", null, 5.0, 10, null)).getId();
+
+        assertEquals(30, inventoryService.increaseStock(productId, 20, "east").getQuantityInStock());
+        inventoryService.increaseStock(productId, 5, "west");
+        assertEquals(27, inventoryService.decreaseStock(productId, 8, "east").getQuantityInStock());
+
+        ProductAvailability availability = inventoryService.getAvailability(productId).orElseThrow();
+        assertEquals(27, availability.getQuantityInStock());
+        assertEquals(27, availability.getAvailableQuantity());
+        assertEquals(Map.of("east", 12, "main", 10, "west", 5), availability.getLocations());
+    }
+
+    @Test
+    void decreaseStockAtLocation_shouldOnlySellWhatThatLocationHolds() {
+        Long productId = inventoryService.createProduct(new Product("Scarce Widget", null, 5.0, 10, null)).getId();
+        inventoryService.increaseStock(productId, 3, "east");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.decreaseStock(productId, 4, "east"));
+        assertEquals("Not enough stock for product Scarce Widget at location east", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.decreaseStock(productId, 11, "main"));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.decreaseStock(productId, 1, "north"));
+
+        assertEquals(Map.of("east", 3, "main", 10), inventoryService.getAvailability(productId).orElseThrow().getLocations());
+    }
+
+    @Test
+    void decreaseStockAtLocation_shouldNotSellUnitsHeldByReservations() {
+        Long productId = inventoryService.createProduct(new Product("Reserved Widget", null, 5.0, 0, null)).getId();
+        inventoryService.increaseStock(productId, 4, "east");
+        reservationService.reserve(productId, 3, null).orElseThrow();
+
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.decreaseStock(productId, 2, "east"));
+
+        ProductAvailability availability = inventoryService.getAvailability(productId).orElseThrow();
+        assertEquals(1, availability.getAvailableQuantity());
+        assertEquals(Map.of("east", 4, "main", 0), availability.getLocations());
+    }
+
+    @Test
+    void unlocatedSales_shouldUseUpTheDefaultLocationFirst_thenTheLargestLocations() {
+        Long productId = inventoryService.createProduct(new Product("Drained Widget", null, 5.0, 4, null)).getId();
+        inventoryService.increaseStock(productId, 6, "east");
+        inventoryService.increaseStock(productId, 3, "west");
+
+        inventoryService.decreaseStock(productId, 7);
+        assertEquals(Map.of("east", 3, "main", 0, "west", 3), inventoryService.getAvailability(productId).orElseThrow().getLocations());
+
+        inventoryService.applyStockMovements(List.of(new StockMovement(productId, -3)));
+        assertEquals(Map.of("main", 0, "west", 3), inventoryService.getAvailability(productId).orElseThrow().getLocations());
+    }
+
+    @Test
+    void getAvailability_shouldReturnEmpty_whenProductDoesNotExist() {
+        assertTrue(inventoryService.getAvailability(999_999L).isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against H2, so it covers the portable fallback; the PostgreSQL query shape is covered by toPrefixTsQuery
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:product_search_db;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ProductSearchTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductSearchSchema productSearchSchema;
+
+    private static boolean seeded;
+
+    @BeforeAll
+    static void reset() {
+        seeded = false;
+    }
+
+    @Test
+    void search_shouldRankNamePrefixMatchesFirst() {
+        seed();
+
+        List<String> names = names(inventoryService.searchProducts("Steel", 10, 0));
+
+        assertEquals(List.of("Steel Bolt", "Steel Nut", "Hex Key"), names);
+        assertFalse(productSearchSchema.isFullTextEnabled());
+    }
+
+    @Test
+    void search_shouldPageByOffset() {
+        seed();
+
+        assertEquals(List.of("Steel Bolt", "Steel Nut"), names(inventoryService.searchProducts("steel", 2, 0)));
+        assertEquals(List.of("Hex Key"), names(inventoryService.searchProducts("steel", 2, 2)));
+    }
+
+    @Test
+    void search_shouldTreatWildcardsLiterally() {
+        seed();
+
+        assertEquals(List.of("100% Cotton Rag"), names(inventoryService.searchProducts("100%", 10, 0)));
+        assertTrue(inventoryService.searchProducts("_", 10, 0).isEmpty());
+    }
+
+    @Test
+    void search_shouldRejectBlankOrOverlongQueries() {
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.searchProducts(" ", 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.searchProducts("x".repeat(201), 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.searchProducts("steel", 10, -1));
+    }
+
+    @Test
+    void toPrefixTsQuery_shouldRequireEveryWordAndCompleteTheLast() {
+        assertEquals("steel & bo:*", ProductSearchRepositoryImpl.toPrefixTsQuery("steel bo"));
+        assertEquals("m8 & bolt:*", ProductSearchRepositoryImpl.toPrefixTsQuery("  m8!  bolt "));
+        // tsquery operators in the input are dropped, not interpreted
+        assertEquals("a & b:*", ProductSearchRepositoryImpl.toPrefixTsQuery("a | !b"));
+        assertEquals("", ProductSearchRepositoryImpl.toPrefixTsQuery("&|!()"));
+    }
+
+    private void seed() {
+        if (seeded) {
+            return;
+        }
+        inventoryService.createProduct(new Product("Steel Nut", "M8 nut", 0.1, 100, 1L));
+        inventoryService.createProduct(new Product("Steel Bolt", "M8 bolt", 0.2, 100, 1L));
+        inventoryService.createProduct(new Product("Hex Key", "Hardened steel hex key", 2.0, 10, 1L));
+        inventoryService.createProduct(new Product("Copper Pipe", "15 mm", 4.0, 10, 1L));
+        inventoryService.createProduct(new Product("100% Cotton Rag", "Lint free", 1.0, 10, 1L));
+        seeded = true;
+    }
+
+    private static List<String> names(List<Product> products) {
+        return products.stream().map(Product::getName).toList();
+    }
+}
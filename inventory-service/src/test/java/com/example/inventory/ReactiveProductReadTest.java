@@ -0,0 +1,117 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive_read_db;DB_CLOSE_DELAY=-1",
+        "inventory.reactive.enabled=true",
+        "inventory.reactive.port=0",
+        "inventory.reactive.r2dbc.url=r2dbc:h2:mem:///reactive_read_db"
+})
+@ActiveProfiles("test")
+class ReactiveProductReadTest {
+
+    @Autowired
+    private ReactiveProductServer reactiveProductServer;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private SupplierCache supplierCache;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + reactiveProductServer.getPort()).build();
+    }
+
+    @Test
+    void getProductById_shouldReturnTheRowWrittenThroughJpa() {
+        Product created = inventoryService.createProduct(new Product("Reactive Bolt", "M6", 0.25, 40, null));
+
+        Product read = client.get().uri("/api/products/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Product.class).returnResult().getResponseBody();
+
+        assertNotNull(read);
+        assertEquals("Reactive Bolt", read.getName());
+        assertEquals("M6", read.getDescription());
+        assertEquals(40, read.getQuantityInStock());
+        assertEquals(40, read.getAvailableQuantity());
+        client.get().uri("/api/products/{id}", 999_999).exchange().expectStatus().isNotFound();
+        client.get().uri("/api/products/abc").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getProductById_shouldAnswerNotModifiedUntilTheStockChanges() {
+        Product created = inventoryService.createProduct(new Product("Reactive Tagged", null, 1.0, 10, null));
+        String eTag = client.get().uri("/api/products/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.noCache())
+                .returnResult(Product.class).getResponseHeaders().getETag();
+        assertNotNull(eTag);
+
+        client.get().uri("/api/products/{id}", created.getId())
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        inventoryService.decreaseStock(created.getId(), 1);
+
+        client.get().uri("/api/products/{id}", created.getId())
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, changed -> assertNotEquals(eTag, changed));
+    }
+
+    @Test
+    void getProducts_shouldPageByIdAndLinkTheNextPage() {
+        Product first = inventoryService.createProduct(new Product("Reactive Page 1", null, 1.0, 1, null));
+        inventoryService.createProduct(new Product("Reactive Page 2", null, 1.0, 2, null));
+        inventoryService.createProduct(new Product("Reactive Page 3", null, 1.0, 3, null));
+        long after = first.getId() - 1;
+
+        List<Product> page = client.get().uri("/api/products?after={after}&limit=2", after)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, link -> assertTrue(link.contains("after=" + (first.getId() + 1)), link))
+                .expectBodyList(Product.class).returnResult().getResponseBody();
+
+        assertNotNull(page);
+        assertEquals(List.of("Reactive Page 1", "Reactive Page 2"), page.stream().map(Product::getName).toList());
+    }
+
+    @Test
+    void getProductSupplierDetails_shouldServeCachedSuppliersAndNotFoundWhenSupplierServiceIsDown() {
+        SupplierDTO supplier = new SupplierDTO();
+        supplier.setId(71L);
+        supplier.setName("Cached Parts");
+        supplierCache.get(71L, id -> Optional.of(supplier));
+        Product cached = inventoryService.createProduct(new Product("Reactive Cached", null, 1.0, 1, 71L));
+        // Nothing listens on the supplier-service URL in tests, so an uncached supplier cannot be resolved
+        Product uncached = inventoryService.createProduct(new Product("Reactive Uncached", null, 1.0, 1, 72L));
+
+        client.get().uri("/api/products/{id}/supplier", cached.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Cached Parts");
+        client.get().uri("/api/products/{id}/supplier", uncached.getId()).exchange().expectStatus().isNotFound();
+    }
+}
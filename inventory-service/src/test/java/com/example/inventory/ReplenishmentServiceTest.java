@@ -0,0 +1,191 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:replenishment_db;DB_CLOSE_DELAY=-1",
+        // Stages are run by the tests
+        "inventory.replenishment.enabled=false",
+        "inventory.replenishment.settle-delay=PT0S",
+        "inventory.replenishment.receipt-settle-delay=PT0S"
+})
+@ActiveProfiles("test")
+class ReplenishmentServiceTest {
+
+    @MockBean
+    private SupplierClient supplierClient;
+
+    // Otherwise its startup poll calls the mock client while a test is stubbing it
+    @MockBean
+    private SupplierChangePoller supplierChangePoller;
+
+    @Autowired
+    private ReplenishmentService replenishmentService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReplenishmentOrderRepository orderRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    private final AtomicLong purchaseOrderIds = new AtomicLong(1000);
+    // The receipt cursor outlives each test, so receipt ids keep increasing across them
+    private static final AtomicLong receiptIds = new AtomicLong();
+
+    @Test
+    void pipeline_shouldOrderOncePerSupplier_andRestockInOneBatchWhenReceived() throws Exception {
+        Long bolts = product("Pipeline Bolt", 3, 5, 20, 81L);
+        Long nuts = product("Pipeline Nut", 10, 10, null, 81L);
+        Long gears = product("Pipeline Gear", 1, 2, null, 82L);
+        Long washers = product("Pipeline Washer", 50, 5, null, 81L);
+        List<PurchaseOrderDTO> sent = new ArrayList<>();
+        when(supplierClient.createPurchaseOrder(any())).thenAnswer(invocation -> {
+            PurchaseOrderDTO order = invocation.getArgument(0);
+            order.setId(purchaseOrderIds.incrementAndGet());
+            sent.add(order);
+            return Mono.just(order);
+        });
+
+        // First scan is a full scan
+        replenishmentService.scan();
+        assertEquals(20, onOrder(bolts));
+        assertEquals(10, onOrder(nuts));
+        assertEquals(3, onOrder(gears));
+        assertEquals(0, onOrder(washers));
+
+        // Nothing moved, and what is on order already covers the shortfall
+        assertEquals(0, replenishmentService.scan());
+
+        Thread.sleep(2);
+        inventoryService.decreaseStock(washers, 46);
+        Thread.sleep(2);
+        assertEquals(1, replenishmentService.scan());
+        assertEquals(6, onOrder(washers));
+
+        assertEquals(3, replenishmentService.submitPendingOrders());
+        assertEquals(0, replenishmentService.submitPendingOrders());
+        Map<Long, List<Long>> orderedBySupplier = sent.stream().collect(Collectors.groupingBy(PurchaseOrderDTO::getSupplierId,
+                Collectors.flatMapping(order -> order.getLines().stream().map(PurchaseOrderDTO.Line::getProductId), Collectors.toList())));
+        assertTrue(orderedBySupplier.get(81L).containsAll(List.of(bolts, nuts, washers)));
+        assertEquals(List.of(gears), orderedBySupplier.get(82L));
+
+        PurchaseOrderDTO boltsAndNuts = sent.stream().filter(order -> order.getLines().size() == 2).findFirst().orElseThrow();
+        receipts(new PurchaseOrderReceiptDTO(receiptIds.incrementAndGet(), boltsAndNuts),
+                new PurchaseOrderReceiptDTO(receiptIds.incrementAndGet(), boltsAndNuts));
+
+        assertEquals(1, replenishmentService.receiveOrders());
+
+        assertEquals(23, inventoryService.getProductById(bolts).orElseThrow().getQuantityInStock());
+        assertEquals(20, inventoryService.getProductById(nuts).orElseThrow().getQuantityInStock());
+        assertEquals(0, onOrder(bolts));
+        assertEquals(0, onOrder(nuts));
+        assertEquals(StockLedgerEntry.Reason.PURCHASE_ORDER, lastMovement(bolts).getReason());
+        assertEquals(20L, lastMovement(bolts).getDelta());
+        assertEquals(ReplenishmentOrder.Status.RECEIVED, orderRepository.findAll().stream()
+                .filter(order -> order.getReference().equals(boltsAndNuts.getReference())).findFirst().orElseThrow().getStatus());
+    }
+
+    @Test
+    void receiveOrders_shouldRestockAnOrderWhoseReceiptCommitsAfterAHigherId() throws Exception {
+        Long pins = product("Late Pin", 1, 4, 5, 83L);
+        Long clips = product("Early Clip", 1, 4, 5, 84L);
+        Thread.sleep(2);
+        List<PurchaseOrderDTO> sent = new ArrayList<>();
+        when(supplierClient.createPurchaseOrder(any())).thenAnswer(invocation -> {
+            PurchaseOrderDTO order = invocation.getArgument(0);
+            order.setId(purchaseOrderIds.incrementAndGet());
+            sent.add(order);
+            return Mono.just(order);
+        });
+        replenishmentService.scan();
+        replenishmentService.submitPendingOrders();
+        PurchaseOrderDTO pinOrder = orderFor(sent, pins);
+        PurchaseOrderDTO clipOrder = orderFor(sent, clips);
+        PurchaseOrderReceiptDTO lateReceipt = new PurchaseOrderReceiptDTO(receiptIds.incrementAndGet(), pinOrder);
+        PurchaseOrderReceiptDTO earlyReceipt = new PurchaseOrderReceiptDTO(receiptIds.incrementAndGet(), clipOrder);
+
+        ReflectionTestUtils.setField(replenishmentService, "receiptSettleDelay", Duration.ofMinutes(1));
+        try {
+            receipts(earlyReceipt);
+            assertEquals(1, replenishmentService.receiveOrders());
+
+            receipts(lateReceipt, earlyReceipt);
+            assertEquals(1, replenishmentService.receiveOrders());
+        } finally {
+            ReflectionTestUtils.setField(replenishmentService, "receiptSettleDelay", Duration.ZERO);
+        }
+
+        assertEquals(6, inventoryService.getProductById(pins).orElseThrow().getQuantityInStock());
+        assertEquals(6, inventoryService.getProductById(clips).orElseThrow().getQuantityInStock());
+    }
+
+    @Test
+    void rejectedOrder_shouldTakeItsUnitsOffOrder() {
+        Long cams = product("Rejected Cam", 0, 4, 12, 99L);
+        when(supplierClient.createPurchaseOrder(any())).thenReturn(Mono.error(
+                WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request", null, null, null)));
+
+        replenishmentService.scan();
+        assertEquals(12, onOrder(cams));
+
+        replenishmentService.submitPendingOrders();
+
+        assertEquals(0, onOrder(cams));
+        assertTrue(orderRepository.findAll().stream()
+                .filter(order -> order.getLines().stream().anyMatch(line -> line.getProductId().equals(cams)))
+                .allMatch(order -> order.getStatus() == ReplenishmentOrder.Status.REJECTED));
+    }
+
+    private void receipts(PurchaseOrderReceiptDTO... receipts) {
+        when(supplierClient.getPurchaseOrderReceipts(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return Mono.just(List.of(receipts).stream().filter(receipt -> receipt.getId() > after).toList());
+        });
+    }
+
+    private static PurchaseOrderDTO orderFor(List<PurchaseOrderDTO> sent, Long productId) {
+        return sent.stream()
+                .filter(order -> order.getLines().stream().anyMatch(line -> line.getProductId().equals(productId)))
+                .findFirst().orElseThrow();
+    }
+
+    private Long product(String name, int stock, int reorderPoint, Integer reorderQuantity, Long supplierId) {
+        Product product = new Product(name, "Replenished", 1.0, stock, supplierId);
+        product.setReorderPoint(reorderPoint);
+        product.setReorderQuantity(reorderQuantity);
+        return inventoryService.createProduct(product).getId();
+    }
+
+    private int onOrder(Long productId) {
+        return inventoryService.getProductById(productId).orElseThrow().getOnOrderQuantity();
+    }
+
+    private StockLedgerEntry lastMovement(Long productId) {
+        List<StockLedgerEntry> movements = stockLedgerService.getMovements(productId, null, 100);
+        return movements.get(movements.size() - 1);
+    }
+}
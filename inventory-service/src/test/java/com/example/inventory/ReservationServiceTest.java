@@ -0,0 +1,116 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class ReservationServiceTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reserve_shouldHoldStock_andBlockSalesOfHeldUnits() {
+        Product product = productRepository.save(new Product("Held Product", "Desc", 10.0, 5, 1L));
+
+        StockReservation reservation = reservationService.reserve(product.getId(), 3, null).orElseThrow();
+
+        assertEquals(StockReservation.Status.ACTIVE, reservation.getStatus());
+        Product held = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(5, held.getQuantityInStock());
+        assertEquals(2, held.getAvailableQuantity());
+        assertThrows(RuntimeException.class, () -> inventoryService.decreaseStock(product.getId(), 3));
+        assertThrows(IllegalArgumentException.class, () -> reservationService.reserve(product.getId(), 3, null));
+        assertEquals(3, inventoryService.decreaseStock(product.getId(), 2).getQuantityInStock());
+    }
+
+    @Test
+    void reserve_shouldReturnEmpty_whenProductDoesNotExist() {
+        assertTrue(reservationService.reserve(999_999L, 1, null).isEmpty());
+    }
+
+    @Test
+    void confirm_shouldTurnHoldIntoSale() {
+        Product product = productRepository.save(new Product("Confirmed Product", "Desc", 10.0, 5, 1L));
+        StockReservation reservation = reservationService.reserve(product.getId(), 2, null).orElseThrow();
+
+        assertEquals(StockReservation.Status.CONFIRMED, reservationService.confirm(reservation.getId()).orElseThrow().getStatus());
+
+        Product sold = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(3, sold.getQuantityInStock());
+        assertEquals(0, sold.getReservedQuantity());
+        assertThrows(IllegalArgumentException.class, () -> reservationService.release(reservation.getId()));
+    }
+
+    @Test
+    void confirmAndRelease_shouldRollBack_whenTheHeldUnitsAreGone() {
+        Product product = productRepository.save(new Product("Drifted Product", "Desc", 10.0, 5, 1L));
+        StockReservation reservation = reservationService.reserve(product.getId(), 2, null).orElseThrow();
+        jdbcTemplate.update("UPDATE products SET reserved_quantity = 0 WHERE id = ?", product.getId());
+
+        assertThrows(IllegalStateException.class, () -> reservationService.confirm(reservation.getId()));
+        assertThrows(IllegalStateException.class, () -> reservationService.release(reservation.getId()));
+
+        assertEquals(StockReservation.Status.ACTIVE, reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, product.getId()));
+    }
+
+    @Test
+    void release_shouldSucceed_whenProductWasDeleted() {
+        Product product = productRepository.save(new Product("Deleted Held Product", "Desc", 10.0, 5, 1L));
+        StockReservation reservation = reservationService.reserve(product.getId(), 2, null).orElseThrow();
+        inventoryService.deleteProduct(product.getId());
+
+        assertEquals(StockReservation.Status.RELEASED, reservationService.release(reservation.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void release_shouldReturnHeldUnits() {
+        Product product = productRepository.save(new Product("Released Product", "Desc", 10.0, 5, 1L));
+        StockReservation reservation = reservationService.reserve(product.getId(), 2, null).orElseThrow();
+
+        reservationService.release(reservation.getId());
+
+        Product released = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(5, released.getAvailableQuantity());
+        assertEquals(StockReservation.Status.RELEASED, reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void releaseExpiredReservations_shouldReturnExpiredHoldsToStock() {
+        Product product = productRepository.save(new Product("Expiring Product", "Desc", 10.0, 5, 1L));
+        StockReservation expiring = reservationService.reserve(product.getId(), 2, Duration.ofMinutes(1)).orElseThrow();
+        StockReservation live = reservationService.reserve(product.getId(), 1, Duration.ofMinutes(1)).orElseThrow();
+        expiring.setExpiresAt(Instant.now().minusSeconds(1));
+        reservationRepository.save(expiring);
+
+        assertTrue(reservationService.releaseExpiredReservations() >= 1);
+
+        Product swept = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(1, swept.getReservedQuantity());
+        assertEquals(StockReservation.Status.EXPIRED, reservationRepository.findById(expiring.getId()).orElseThrow().getStatus());
+        assertEquals(StockReservation.Status.ACTIVE, reservationRepository.findById(live.getId()).orElseThrow().getStatus());
+        assertThrows(IllegalArgumentException.class, () -> reservationService.confirm(expiring.getId()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.inventory;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    private static final int READS = 1000;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The JCache regions are shared by every test context in the JVM, and product ids repeat across their
+        // databases: a newer version left behind by another context would keep this one's rows out of the cache
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void readHeavyWorkload_shouldBeServedFromCache() {
+        Product product = productRepository.save(new Product("Read Heavy Product", "Description", 10.0, 100, 1L));
+        inventoryService.getProductById(product.getId());
+        statistics.clear();
+
+        for (int i = 0; i < READS; i++) {
+            inventoryService.getProductById(product.getId());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(READS, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void stockMutations_shouldInvalidateOnlyTheMutatedProduct() {
+        Product mutated = productRepository.save(new Product("Mutated Product", "Description", 10.0, 10, 1L));
+        Product untouched = productRepository.save(new Product("Untouched Product", "Description", 10.0, 10, 1L));
+        inventoryService.getProductById(mutated.getId());
+        inventoryService.getProductById(untouched.getId());
+
+        assertEquals(7, inventoryService.decreaseStock(mutated.getId(), 3).getQuantityInStock());
+        assertEquals(7, inventoryService.getProductById(mutated.getId()).orElseThrow().getQuantityInStock());
+        assertEquals(12, inventoryService.increaseStock(mutated.getId(), 5).getQuantityInStock());
+        assertEquals(12, inventoryService.getProductById(mutated.getId()).orElseThrow().getQuantityInStock());
+
+        statistics.clear();
+        assertEquals(10, inventoryService.getProductById(untouched.getId()).orElseThrow().getQuantityInStock());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateAndDelete_shouldInvalidateCachedProduct() {
+        Product product = productRepository.save(new Product("Updated Product", "Description", 10.0, 10, 1L));
+        inventoryService.getProductById(product.getId());
+
+        inventoryService.updateProduct(product.getId(), new Product("Renamed Product", "Description", 12.0, 10, 1L));
+        assertEquals("Renamed Product", inventoryService.getProductById(product.getId()).orElseThrow().getName());
+
+        inventoryService.deleteProduct(product.getId());
+        assertTrue(inventoryService.getProductById(product.getId()).isEmpty());
+    }
+}
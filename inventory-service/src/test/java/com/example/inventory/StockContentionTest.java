@@ -0,0 +1,87 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class StockContentionTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 250;
+    private static final int INITIAL_STOCK = 1000;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void decreaseStock_shouldNeverOversell_underConcurrentSales() throws Exception {
+        Product product = productRepository.save(new Product("Contended Product", "Flash sale", 10.0, INITIAL_STOCK, 1L));
+
+        int sold = runSales(() -> inventoryService.decreaseStock(product.getId(), 1));
+
+        assertEquals(INITIAL_STOCK, sold);
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getQuantityInStock());
+    }
+
+    @Test
+    void readModifyWrite_shouldNotLoseUpdates_becauseOfTheVersionCheck() throws Exception {
+        Product product = productRepository.save(new Product("Baseline Product", "Flash sale", 10.0, INITIAL_STOCK, 1L));
+
+        // The previous implementation: findById -> Product.decreaseStock -> save, with no locking. Concurrent
+        // saves of the same version used to overwrite each other; now all but one fail and their sales are refused.
+        int sold = runSales(() -> transactionTemplate.executeWithoutResult(status -> {
+            Product current = productRepository.findById(product.getId()).orElseThrow();
+            current.decreaseStock(1);
+            productRepository.save(current);
+        }));
+
+        assertEquals(INITIAL_STOCK - sold, productRepository.findById(product.getId()).orElseThrow().getQuantityInStock());
+    }
+
+    private int runSales(Runnable sale) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                    try {
+                        sale.run();
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Insufficient stock or a lost optimistic race; the sale did not happen.
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return sold.get();
+    }
+}
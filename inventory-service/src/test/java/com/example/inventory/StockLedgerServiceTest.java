@@ -0,0 +1,95 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock_ledger_db;DB_CLOSE_DELAY=-1",
+        // Snapshots are taken by the tests, right up to the present
+        "inventory.stock-ledger.snapshot-interval=PT1H",
+        "inventory.stock-ledger.settle-delay=PT0S"
+})
+@ActiveProfiles("test")
+class StockLedgerServiceTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Test
+    void everyStockChange_shouldBeAppendedToTheLedger() {
+        Long productId = inventoryService.createProduct(new Product("Ledger Widget", "Ledger", 5.0, 50, 1L)).getId();
+        inventoryService.decreaseStock(productId, 8);
+        inventoryService.increaseStock(productId, 3);
+        inventoryService.applyStockMovements(List.of(new StockMovement(productId, -5)));
+        StockReservation reservation = reservationService.reserve(productId, 2, null).orElseThrow();
+        reservationService.confirm(reservation.getId());
+        inventoryService.updateProduct(productId, new Product("Ledger Widget", "Ledger", 5.0, 45, 1L));
+
+        List<StockLedgerEntry> movements = stockLedgerService.getMovements(productId, null, 100);
+
+        assertEquals(List.of(StockLedgerEntry.Reason.CREATED, StockLedgerEntry.Reason.SALE, StockLedgerEntry.Reason.RESTOCK,
+                        StockLedgerEntry.Reason.BATCH, StockLedgerEntry.Reason.RESERVATION, StockLedgerEntry.Reason.ADJUSTMENT),
+                movements.stream().map(StockLedgerEntry::getReason).toList());
+        assertEquals(List.of(50L, -8L, 3L, -5L, -2L, 7L), movements.stream().map(StockLedgerEntry::getDelta).toList());
+        assertEquals(45, movements.stream().mapToLong(StockLedgerEntry::getDelta).sum());
+    }
+
+    @Test
+    void stockAt_shouldMatchTheQuantityAtThatTime_beforeAndAfterSnapshots() throws Exception {
+        Instant beforeCreation = tick();
+        Long productId = inventoryService.createProduct(new Product("Snapshot Widget", "Ledger", 5.0, 100, 1L)).getId();
+        Instant afterCreation = tick();
+        inventoryService.decreaseStock(productId, 30);
+        Instant afterSale = tick();
+
+        // No snapshot yet: worked back from the current quantity
+        assertEquals(100, stockLedgerService.getStockAt(productId, afterCreation).orElseThrow());
+
+        assertTrue(stockLedgerService.compactSnapshots() >= 1);
+        Instant afterFirstSnapshot = tick();
+        inventoryService.increaseStock(productId, 5);
+        Instant afterRestock = tick();
+
+        assertEquals(0, stockLedgerService.getStockAt(productId, beforeCreation).orElseThrow());
+        assertEquals(100, stockLedgerService.getStockAt(productId, afterCreation).orElseThrow());
+        assertEquals(70, stockLedgerService.getStockAt(productId, afterSale).orElseThrow());
+        assertEquals(70, stockLedgerService.getStockAt(productId, afterFirstSnapshot).orElseThrow());
+        assertEquals(75, stockLedgerService.getStockAt(productId, afterRestock).orElseThrow());
+
+        // The next snapshot only adds the restock to the previous one
+        stockLedgerService.compactSnapshots();
+        assertEquals(75, snapshotRepository.findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(productId, tick())
+                .orElseThrow().getQuantity());
+        assertEquals(2, snapshotRepository.findAll().stream().filter(s -> s.getProductId().equals(productId)).count());
+        assertEquals(70, stockLedgerService.getStockAt(productId, afterFirstSnapshot).orElseThrow());
+    }
+
+    @Test
+    void stockAt_shouldBeEmpty_forAnUnknownProduct() {
+        assertTrue(stockLedgerService.getStockAt(-1L, Instant.now()).isEmpty());
+    }
+
+    // Ledger timestamps are microsecond precision; keep each step on a distinct instant
+    private static Instant tick() throws InterruptedException {
+        Thread.sleep(2);
+        Instant now = Instant.now();
+        Thread.sleep(2);
+        return now;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupplierCacheTest {
+
+    private final SupplierCache supplierCache = new SupplierCache(100, Duration.ofHours(12), Duration.ofSeconds(30));
+
+    @Test
+    void get_shouldNotCacheALoadThatWasEvictedWhileInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        CompletableFuture<Optional<SupplierDTO>> stale = CompletableFuture.supplyAsync(() -> supplierCache.get(1L, id -> {
+            loading.countDown();
+            await(evicted);
+            return Optional.of(supplier(id, "Old Name"));
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        supplierCache.evict(1L);
+        evicted.countDown();
+
+        assertEquals("Old Name", stale.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        assertEquals("New Name", supplierCache.get(1L, id -> Optional.of(supplier(id, "New Name"))).orElseThrow().getName());
+    }
+
+    @Test
+    void get_shouldShareOneLoadAndCacheNothingWhenItFails() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> supplierCache.get(1L, id -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("supplier-service is down");
+        }));
+        supplierCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(supplier(id, "Acme"));
+        });
+        supplierCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getAll_shouldLoadOnlyTheMissingIdsInOneCall() {
+        supplierCache.get(1L, id -> Optional.of(supplier(id, "Cached")));
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<Long, Optional<SupplierDTO>> suppliers = supplierCache.getAll(Set.of(1L, 2L, 3L), missing -> {
+            loads.incrementAndGet();
+            assertEquals(Set.of(2L, 3L), missing);
+            return Map.of(2L, Optional.of(supplier(2L, "Loaded")), 3L, Optional.empty());
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals("Cached", suppliers.get(1L).orElseThrow().getName());
+        assertEquals("Loaded", suppliers.get(2L).orElseThrow().getName());
+        assertTrue(suppliers.get(3L).isEmpty());
+    }
+
+    @Test
+    void getAsync_shouldNotCacheALoadThatWasEvictedWhileInFlight() {
+        Sinks.One<SupplierDTO> response = Sinks.one();
+        Mono<SupplierDTO> stale = supplierCache.getAsync(1L, id -> response.asMono()).cache();
+        stale.subscribe();
+
+        supplierCache.evict(1L);
+        response.tryEmitValue(supplier(1L, "Old Name"));
+
+        assertEquals("Old Name", stale.block(Duration.ofSeconds(5)).getName());
+        assertEquals("New Name", supplierCache.getAsync(1L, id -> Mono.just(supplier(id, "New Name"))).block().getName());
+    }
+
+    private static SupplierDTO supplier(Long id, String name) {
+        SupplierDTO supplier = new SupplierDTO();
+        supplier.setId(id);
+        supplier.setName(name);
+        return supplier;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SupplierChangePollerTest {
+
+    @Mock
+    private SupplierClient supplierClient;
+
+    @Mock
+    private SupplierCache supplierCache;
+
+    @InjectMocks
+    private SupplierChangePoller poller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(poller, "batchSize", 2);
+        ReflectionTestUtils.setField(poller, "settleDelay", Duration.ZERO);
+    }
+
+    @Test
+    void poll_shouldEvictChangedSuppliersAndAdvanceCursor() {
+        when(supplierClient.getChanges(0L, 2))
+                .thenReturn(Mono.just(List.of(new SupplierChangeDTO(1L, 7L, "UPDATED"), new SupplierChangeDTO(2L, 8L, "DELETED"))));
+        when(supplierClient.getChanges(2L, 2))
+                .thenReturn(Mono.just(List.of(new SupplierChangeDTO(3L, 7L, "UPDATED"))));
+
+        poller.poll();
+
+        verify(supplierCache, times(2)).evict(7L);
+        verify(supplierCache, times(1)).evict(8L);
+        assertEquals(3L, poller.getLastSeenChangeId());
+    }
+
+    @Test
+    void poll_shouldEvictAChangeThatCommitsAfterAHigherId() {
+        ReflectionTestUtils.setField(poller, "settleDelay", Duration.ofMinutes(1));
+        when(supplierClient.getChanges(0L, 2))
+                .thenReturn(Mono.just(List.of(new SupplierChangeDTO(2L, 8L, "UPDATED"))))
+                .thenReturn(Mono.just(List.of(new SupplierChangeDTO(1L, 7L, "UPDATED"), new SupplierChangeDTO(2L, 8L, "UPDATED"))))
+                .thenReturn(Mono.just(List.of()));
+        when(supplierClient.getChanges(2L, 2)).thenReturn(Mono.just(List.of()));
+
+        poller.poll();
+        // Change 1 was inserted first but committed after change 2 had been read
+        poller.poll();
+
+        verify(supplierCache, times(1)).evict(7L);
+        verify(supplierCache, times(1)).evict(8L);
+        assertEquals(0L, poller.getLastSeenChangeId());
+
+        ReflectionTestUtils.setField(poller, "settleDelay", Duration.ZERO);
+        poller.poll();
+
+        assertEquals(2L, poller.getLastSeenChangeId());
+        poller.poll();
+        // Once from the second poll's full page, once from the settled cursor
+        verify(supplierClient, times(2)).getChanges(2L, 2);
+        verify(supplierCache, times(1)).evict(7L);
+    }
+
+    @Test
+    void poll_shouldKeepCursor_whenSupplierServiceIsUnavailable() {
+        when(supplierClient.getChanges(anyLong(), anyInt()))
+                .thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+        poller.poll();
+
+        verifyNoInteractions(supplierCache);
+        assertEquals(0L, poller.getLastSeenChangeId());
+    }
+}
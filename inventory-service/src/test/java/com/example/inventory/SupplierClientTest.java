@@ -0,0 +1,185 @@
+package com.example.inventory;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupplierClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String ifNoneMatch;
+    private volatile long delayMillis;
+    private SupplierClient supplierClient;
+    private CircuitBreaker circuitBreaker;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/suppliers", exchange -> {
+            requests.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (status == 200 && "\"7\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = (exchange.getRequestURI().getQuery() != null
+                    ? "[{\"id\":1,\"name\":\"Stub Supplier\"},{\"id\":2,\"name\":\"Other Supplier\"}]"
+                    : "{\"id\":1,\"name\":\"Stub Supplier\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("ETag", "\"7\"");
+            exchange.sendResponseHeaders(status, status == 200 ? body.length : -1);
+            if (status == 200) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        // Slow responses must not hold up the next request
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        circuitBreaker = CircuitBreaker.of("supplier-service", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        WebClient webClient = WebClient.create("http://localhost:" + server.getAddress().getPort() + "/api/suppliers");
+        supplierClient = new SupplierClient(webClient, circuitBreaker, Duration.ofSeconds(2), Duration.ofSeconds(5), 2,
+                Duration.ofMillis(10), 100, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void getSupplier_shouldReturnSupplier() {
+        SupplierDTO supplier = supplierClient.getSupplier(1L).block();
+
+        assertNotNull(supplier);
+        assertEquals("Stub Supplier", supplier.getName());
+    }
+
+    @Test
+    void getSupplier_shouldRevalidateWithTheLastETag() {
+        SupplierDTO fetched = supplierClient.getSupplier(1L).block();
+        assertNull(ifNoneMatch);
+
+        SupplierDTO revalidated = supplierClient.getSupplier(1L).block();
+
+        assertEquals("\"7\"", ifNoneMatch);
+        assertSame(fetched, revalidated);
+        assertEquals(2, requests.get());
+        assertEquals(2, calls("success"));
+        assertEquals(1, meterRegistry.get("supplier.client.revalidations").tag("outcome", "not_modified").counter().count());
+    }
+
+    @Test
+    void getSupplier_shouldForgetTheETag_whenSupplierIsGone() {
+        supplierClient.getSupplier(1L).block();
+        status = 404;
+        assertTrue(supplierClient.getSupplier(1L).blockOptional().isEmpty());
+        status = 200;
+
+        assertNotNull(supplierClient.getSupplier(1L).block());
+        assertNull(ifNoneMatch);
+    }
+
+    @Test
+    void getSuppliers_shouldResolveManyIdsInOneRequest() {
+        List<SupplierDTO> suppliers = supplierClient.getSuppliers(List.of(1L, 2L)).block();
+
+        assertEquals(2, suppliers.size());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void getSupplier_shouldCompleteEmpty_whenNotFound() {
+        status = 404;
+
+        assertTrue(supplierClient.getSupplier(1L).blockOptional().isEmpty());
+        assertEquals(1, requests.get());
+        assertEquals(1, calls("not_found"));
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void getSupplier_shouldRetryServerErrors() {
+        status = 503;
+
+        assertThrows(WebClientResponseException.ServiceUnavailable.class, () -> supplierClient.getSupplier(1L).block());
+        assertEquals(3, requests.get());
+        assertEquals(1, calls("server_error"));
+    }
+
+    @Test
+    void getSupplier_shouldGiveUpAfterTheTotalTimeout_evenWithRetriesLeft() {
+        WebClient webClient = WebClient.create("http://localhost:" + server.getAddress().getPort() + "/api/suppliers");
+        SupplierClient client = new SupplierClient(webClient, circuitBreaker, Duration.ofMillis(400), Duration.ofMillis(600), 2,
+                Duration.ofMillis(10), 100, meterRegistry);
+        supplierClient.getSuppliers(List.of(1L, 2L)).block();
+        requests.set(0);
+        delayMillis = 2_000;
+
+        long started = System.nanoTime();
+        RuntimeException failure = assertThrows(RuntimeException.class, () -> client.getSupplier(1L).block());
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        // Three attempts of 400ms each would take well over a second
+        assertTrue(elapsedMillis < 1_000, elapsedMillis + "ms");
+        assertEquals(2, requests.get());
+        assertEquals(1, calls("timeout"));
+    }
+
+    @Test
+    void getSupplier_shouldFailFast_whenCircuitIsOpen() {
+        status = 500;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(WebClientResponseException.class, () -> supplierClient.getSupplier(1L).block());
+        }
+        int requestsBeforeOpen = requests.get();
+
+        assertEquals(CircuitBreaker.State.OPEN, supplierClient.getCircuitBreakerState());
+        assertThrows(CallNotPermittedException.class, () -> supplierClient.getSupplier(1L).block());
+        assertEquals(requestsBeforeOpen, requests.get());
+        assertEquals(1, calls("circuit_open"));
+    }
+
+    private long calls(String outcome) {
+        return meterRegistry.get("supplier.client.requests").tag("operation", "get").tag("outcome", outcome).timer().count();
+    }
+}
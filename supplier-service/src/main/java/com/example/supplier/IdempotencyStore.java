@@ -0,0 +1,162 @@
+package com.example.supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Responses of writes sent with an Idempotency-Key, kept for {@code supplier.idempotency.ttl} so that a retry gets
+ * the original response instead of applying the write again. A key is claimed before the write runs and holds back
+ * retries while it is in progress; a claim that is never completed (the instance died) lapses after
+ * {@code supplier.idempotency.in-progress-timeout}.
+ * <p>
+ * The default store is a bounded in-memory cache, which only recognises retries that reach the same instance. With
+ * {@code supplier.idempotency.store=database} the keys are kept in the idempotency_keys table and shared by all
+ * instances; claims are made with a plain INSERT, so two instances racing for one key cannot both win.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public enum Status {CLAIMED, IN_PROGRESS, REPLAY, MISMATCH}
+
+    // A stored key; statusCode is null while the request is in progress
+    public record Entry(String fingerprint, Integer statusCode, String contentType, byte[] body, Instant expiresAt) {
+    }
+
+    public record Claim(Status status, Entry entry) {
+    }
+
+    private static final RowMapper<Entry> ENTRY_MAPPER = (rs, rowNum) -> new Entry(rs.getString("fingerprint"),
+            (Integer) rs.getObject("status_code"), rs.getString("content_type"), rs.getBytes("response_body"),
+            rs.getTimestamp("expires_at").toInstant());
+
+    private final boolean database;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Entry> cache;
+
+    @Autowired
+    public IdempotencyStore(@Value("${supplier.idempotency.store:memory}") String store,
+                            @Value("${supplier.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${supplier.idempotency.in-progress-timeout:PT1M}") Duration inProgressTimeout,
+                            @Value("${supplier.idempotency.maximum-size:100000}") long maximumSize,
+                            JdbcTemplate jdbcTemplate) {
+        if (!store.equals("memory") && !store.equals("database")) {
+            throw new IllegalArgumentException("supplier.idempotency.store must be memory or database, not " + store);
+        }
+        this.database = store.equals("database");
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), entry.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Claims the key for a request with this fingerprint. Anything other than {@link Status#CLAIMED} means the request
+     * must not run: it is a retry to answer from {@link Claim#entry()}, a retry of a request still running, or the
+     * key was used for a different request.
+     */
+    public Claim claim(String key, String fingerprint) {
+        Entry inProgress = new Entry(fingerprint, null, null, null, Instant.now().plus(inProgressTimeout));
+        if (!database) {
+            Entry existing = cache.asMap().putIfAbsent(key, inProgress);
+            return existing == null ? new Claim(Status.CLAIMED, inProgress) : classify(existing, fingerprint);
+        }
+        while (true) {
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, fingerprint, expires_at) VALUES (?, ?, ?)",
+                        key, fingerprint, Timestamp.from(inProgress.expiresAt()));
+                return new Claim(Status.CLAIMED, inProgress);
+            } catch (DuplicateKeyException e) {
+                List<Entry> rows = jdbcTemplate.query("SELECT fingerprint, status_code, content_type, response_body, expires_at " +
+                        "FROM idempotency_keys WHERE idempotency_key = ?", ENTRY_MAPPER, key);
+                if (rows.isEmpty()) {
+                    // Purged or released in the meantime; try the INSERT again
+                    continue;
+                }
+                Entry existing = rows.get(0);
+                if (existing.expiresAt().isAfter(Instant.now())) {
+                    return classify(existing, fingerprint);
+                }
+                // Expired but not purged yet: take it over, unless another request just did
+                if (jdbcTemplate.update("UPDATE idempotency_keys SET fingerprint = ?, status_code = NULL, content_type = NULL, " +
+                                "response_body = NULL, expires_at = ? WHERE idempotency_key = ? AND expires_at = ?",
+                        fingerprint, Timestamp.from(inProgress.expiresAt()), key, Timestamp.from(existing.expiresAt())) == 1) {
+                    return new Claim(Status.CLAIMED, inProgress);
+                }
+            }
+        }
+    }
+
+    // Stores the response of a claimed request, to be replayed for the rest of the TTL
+    public void complete(String key, String fingerprint, int statusCode, String contentType, byte[] body) {
+        Entry entry = new Entry(fingerprint, statusCode, contentType, body, Instant.now().plus(ttl));
+        if (!database) {
+            cache.put(key, entry);
+            return;
+        }
+        jdbcTemplate.update("UPDATE idempotency_keys SET status_code = ?, content_type = ?, response_body = ?, expires_at = ? " +
+                "WHERE idempotency_key = ? AND fingerprint = ?", statusCode, contentType, body,
+                Timestamp.from(entry.expiresAt()), key, fingerprint);
+    }
+
+    // Gives up a claim whose request failed, so that a retry runs it again
+    public void release(String key) {
+        if (!database) {
+            cache.asMap().computeIfPresent(key, (k, entry) -> entry.statusCode() == null ? null : entry);
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status_code IS NULL", key);
+    }
+
+    @Scheduled(fixedDelayString = "${supplier.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        if (!database) {
+            return;
+        }
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?", Timestamp.from(Instant.now()));
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    private static Claim classify(Entry existing, String fingerprint) {
+        if (!existing.fingerprint().equals(fingerprint)) {
+            return new Claim(Status.MISMATCH, existing);
+        }
+        return new Claim(existing.statusCode() == null ? Status.IN_PROGRESS : Status.REPLAY, existing);
+    }
+}
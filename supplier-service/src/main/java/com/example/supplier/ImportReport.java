@@ -0,0 +1,53 @@
+package com.example.supplier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many rows were read, imported and rejected, and why each rejected row was refused.
+ * Rows are numbered from 1 in the order they appear, not counting a CSV header. Only the first
+ * {@link #MAX_REPORTED_ERRORS} errors are listed so a badly broken file cannot blow up the response.
+ */
+public class ImportReport {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    public record RowError(long row, String message) {
+    }
+
+    private long received;
+    private long imported;
+    private long rejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void received() {
+        received++;
+    }
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void reject(long row, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+}
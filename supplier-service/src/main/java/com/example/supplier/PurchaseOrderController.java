@@ -0,0 +1,54 @@
+package com.example.supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/suppliers/purchase-orders")
+public class PurchaseOrderController {
+
+    private final PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    public PurchaseOrderController(PurchaseOrderService purchaseOrderService) {
+        this.purchaseOrderService = purchaseOrderService;
+    }
+
+    // Body: {"supplierId": 1, "reference": "...", "lines": [{"productId": 7, "quantity": 50}, ...]}
+    @PostMapping
+    public PurchaseOrder createPurchaseOrder(@RequestBody PurchaseOrder order) {
+        return purchaseOrderService.createPurchaseOrder(order);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PurchaseOrder> getPurchaseOrder(@PathVariable Long id) {
+        return purchaseOrderService.getPurchaseOrder(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/receive")
+    public ResponseEntity<PurchaseOrder> receivePurchaseOrder(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(purchaseOrderService.receivePurchaseOrder(id));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/receipts")
+    public List<PurchaseOrderReceipt> getReceipts(@RequestParam(defaultValue = "0") Long after,
+                                                  @RequestParam(defaultValue = "500") int limit) {
+        return purchaseOrderService.getReceiptsAfter(after, limit);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
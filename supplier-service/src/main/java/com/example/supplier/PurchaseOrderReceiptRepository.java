@@ -0,0 +1,12 @@
+package com.example.supplier;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PurchaseOrderReceiptRepository extends JpaRepository<PurchaseOrderReceipt, Long> {
+    List<PurchaseOrderReceipt> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
@@ -0,0 +1,93 @@
+package com.example.supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class PurchaseOrderService {
+
+    static final int MAX_LINES_PER_ORDER = 1000;
+    static final int MAX_RECEIPTS_PER_PAGE = 1000;
+
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final PurchaseOrderReceiptRepository receiptRepository;
+    private final SupplierRepository supplierRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public PurchaseOrderService(PurchaseOrderRepository purchaseOrderRepository, PurchaseOrderReceiptRepository receiptRepository,
+                                SupplierRepository supplierRepository, MeterRegistry meterRegistry) {
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.receiptRepository = receiptRepository;
+        this.supplierRepository = supplierRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Opens a purchase order. Creating an order whose reference already exists returns the existing order unchanged,
+     * so clients can safely retry.
+     */
+    @Transactional
+    public PurchaseOrder createPurchaseOrder(PurchaseOrder order) {
+        if (order.getReference() == null || order.getReference().isBlank()) {
+            throw new IllegalArgumentException("A purchase order needs a reference");
+        }
+        Optional<PurchaseOrder> existing = purchaseOrderRepository.findByReference(order.getReference());
+        if (existing.isPresent()) {
+            if (!existing.get().getSupplierId().equals(order.getSupplierId())) {
+                throw new IllegalArgumentException("Reference " + order.getReference() + " is already used by another supplier's order");
+            }
+            return existing.get();
+        }
+        if (order.getSupplierId() == null || !supplierRepository.existsById(order.getSupplierId())) {
+            throw new IllegalArgumentException("Supplier not found with id " + order.getSupplierId());
+        }
+        if (order.getLines() == null || order.getLines().isEmpty() || order.getLines().size() > MAX_LINES_PER_ORDER) {
+            throw new IllegalArgumentException("A purchase order needs between 1 and " + MAX_LINES_PER_ORDER + " lines");
+        }
+        for (PurchaseOrderLine line : order.getLines()) {
+            if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Each purchase order line needs a productId and a positive quantity");
+            }
+        }
+        order.setId(null);
+        order.setStatus(PurchaseOrder.Status.OPEN);
+        order.setCreatedAt(Instant.now());
+        order.setReceivedAt(null);
+        PurchaseOrder saved = purchaseOrderRepository.save(order);
+        meterRegistry.counter("supplier.purchase.orders", "event", "created").increment();
+        return saved;
+    }
+
+    public Optional<PurchaseOrder> getPurchaseOrder(Long id) {
+        return purchaseOrderRepository.findById(id);
+    }
+
+    // Marks the goods as delivered and publishes the receipt to the receipt feed in the same transaction
+    @Transactional
+    public PurchaseOrder receivePurchaseOrder(Long id) {
+        PurchaseOrder order = purchaseOrderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Purchase order not found with id " + id));
+        if (order.getStatus() != PurchaseOrder.Status.OPEN) {
+            throw new IllegalArgumentException("Purchase order " + id + " has already been received");
+        }
+        order.setStatus(PurchaseOrder.Status.RECEIVED);
+        order.setReceivedAt(Instant.now());
+        receiptRepository.save(new PurchaseOrderReceipt(order));
+        meterRegistry.counter("supplier.purchase.orders", "event", "received").increment();
+        return order;
+    }
+
+    // Receipt feed: receipts with an id greater than 'after', oldest first
+    public List<PurchaseOrderReceipt> getReceiptsAfter(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_RECEIPTS_PER_PAGE);
+        return receiptRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize));
+    }
+}
@@ -1,17 +1,32 @@
 package com.example.supplier;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "suppliers")
 public class Supplier {
 
+    // Ids handed out per nextval of suppliers_seq; must match the sequence's INCREMENT BY
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence ids, unlike IDENTITY, let Hibernate and the bulk import batch their inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "suppliers_seq")
+    @SequenceGenerator(name = "suppliers_seq", sequenceName = "suppliers_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String name;
@@ -19,6 +34,13 @@ public class Supplier {
     private String phone;
     private String email;
 
+    // Checked by Hibernate on updates; the ETag of GET /api/suppliers/{id} is derived from it
+    @Version
+    @JsonIgnore
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     public Supplier() {
     }
 
@@ -68,4 +90,12 @@ public class Supplier {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
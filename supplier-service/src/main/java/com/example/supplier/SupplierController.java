@@ -1,20 +1,50 @@
 package com.example.supplier;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/suppliers")
 public class SupplierController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final SupplierService supplierService;
+    private final SupplierImportService supplierImportService;
+    private final ObjectMapper objectMapper;
+    private final CacheControl supplierCacheControl;
+    private final CsvMapper csvMapper = new CsvMapper();
 
     @Autowired
-    public SupplierController(SupplierService supplierService) {
+    public SupplierController(SupplierService supplierService, SupplierImportService supplierImportService,
+                              ObjectMapper objectMapper,
+                              @Value("${supplier.http.cache-max-age:PT60S}") Duration cacheMaxAge) {
         this.supplierService = supplierService;
+        this.supplierImportService = supplierImportService;
+        this.objectMapper = objectMapper;
+        this.supplierCacheControl = CacheControl.maxAge(cacheMaxAge).cachePublic();
     }
 
     @PostMapping
@@ -23,14 +53,84 @@ public class SupplierController {
     }
 
     @GetMapping
-    public List<Supplier> getAllSuppliers() {
-        return supplierService.getAllSuppliers();
+    public ResponseEntity<List<Supplier>> getSuppliers(@RequestParam(required = false) Long after,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Supplier> suppliers = supplierService.getSuppliers(after, pageSize);
+        if (suppliers.size() < pageSize) {
+            return ResponseEntity.ok(suppliers);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", suppliers.get(suppliers.size() - 1).getId())
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok().header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"").body(suppliers);
+    }
+
+    @GetMapping(params = "ids")
+    public List<Supplier> getSuppliersByIds(@RequestParam List<Long> ids) {
+        return supplierService.getSuppliersByIds(ids);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSuppliers() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                supplierService.exportSuppliers(supplier -> {
+                    try {
+                        writer.write(supplier);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    @GetMapping(produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSuppliersCsv() {
+        StreamingResponseBody body = outputStream -> {
+            CsvSchema schema = csvMapper.schemaFor(Supplier.class).withHeader();
+            try (SequenceWriter writer = csvMapper.writer(schema).writeValues(outputStream)) {
+                supplierService.exportSuppliers(supplier -> {
+                    try {
+                        writer.write(supplier);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(TEXT_CSV_VALUE)).body(body);
     }
 
+    // Bulk import; CSV columns and NDJSON fields are named like the JSON properties of a supplier, e.g. contactPerson
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ImportReport importSuppliersCsv(InputStream body) throws IOException {
+        return supplierImportService.importCsv(body);
+    }
+
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON_VALUE)
+    public ImportReport importSuppliersNdjson(InputStream body) throws IOException {
+        return supplierImportService.importNdjson(body);
+    }
+
+    @GetMapping("/changes")
+    public List<SupplierChangeEvent> getChanges(@RequestParam(defaultValue = "0") Long after,
+                                                @RequestParam(defaultValue = "500") int limit) {
+        return supplierService.getChangesAfter(after, limit);
+    }
+
+    // Strong ETag from the row version: a matching If-None-Match gets 304 before the supplier is serialized.
+    // Suppliers rarely change, so shared caches (the CDN) may serve them for the max-age and then revalidate.
     @GetMapping("/{id}")
     public ResponseEntity<Supplier> getSupplierById(@PathVariable Long id) {
         return supplierService.getSupplierById(id)
-                .map(ResponseEntity::ok)
+                .map(supplier -> ResponseEntity.ok()
+                        .eTag(String.valueOf(supplier.getVersion()))
+                        .cacheControl(supplierCacheControl)
+                        .body(supplier))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -39,6 +139,11 @@ public class SupplierController {
         try {
             Supplier updatedSupplier = supplierService.updateSupplier(id, supplierDetails);
             return ResponseEntity.ok(updatedSupplier);
+        } catch (OptimisticLockingFailureException e) {
+            // Another update of the same supplier committed first
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (DataIntegrityViolationException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -54,4 +159,10 @@ public class SupplierController {
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
         return ResponseEntity.badRequest().body(e.getMessage());
     }
+
+    // Any other write rejected by a database constraint, e.g. renaming to a name that is already taken
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Request conflicts with existing data");
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.supplier;
+
+import java.util.List;
+
+/**
+ * Bulk insert for the supplier import: one JDBC batch per call instead of an INSERT per supplier, with ids taken from
+ * suppliers_seq in blocks, the same way Hibernate allocates them.
+ */
+public interface SupplierImportRepository {
+
+    // Assigns ids to the suppliers, inserts them and publishes a CREATED change event for each
+    void insertAll(List<Supplier> suppliers);
+}
@@ -0,0 +1,56 @@
+package com.example.supplier;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+public class SupplierImportRepositoryImpl implements SupplierImportRepository {
+
+    private static final String INSERT_SUPPLIER =
+            "INSERT INTO suppliers (id, name, contact_person, phone, email) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_CHANGE_EVENT =
+            "INSERT INTO supplier_change_events (supplier_id, change_type, created_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public SupplierImportRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<Supplier> suppliers) {
+        if (suppliers.isEmpty()) {
+            return;
+        }
+        assignIds(suppliers);
+        jdbcTemplate.batchUpdate(INSERT_SUPPLIER, suppliers.stream().map(supplier -> new Object[]{
+                supplier.getId(), supplier.getName(), supplier.getContactPerson(), supplier.getPhone(), supplier.getEmail()}).toList());
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE_EVENT, suppliers.stream().map(supplier -> new Object[]{
+                supplier.getId(), SupplierChangeEvent.ChangeType.CREATED.name(), now}).toList());
+    }
+
+    // Each nextval is the top of a block of ID_ALLOCATION_SIZE ids, as for Hibernate's pooled optimizer, so ids
+    // handed out here never collide with those Hibernate assigns on save
+    private void assignIds(List<Supplier> suppliers) {
+        String nextVal = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString("suppliers_seq");
+        long next = 0;
+        long last = -1;
+        for (Supplier supplier : suppliers) {
+            if (next > last) {
+                last = jdbcTemplate.queryForObject(nextVal, Long.class);
+                next = Math.max(1, last - Supplier.ID_ALLOCATION_SIZE + 1);
+            }
+            supplier.setId(next++);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Imports suppliers from CSV (with a header row) or NDJSON. The body is parsed as a stream and handled one chunk at
+ * a time: each row is validated on its own, names and emails are checked against the database with one query each per
+ * chunk, and the accepted rows are inserted as a single JDBC batch in the chunk's own transaction. Rows that fail are
+ * listed in the returned report; the rest of the file is still imported.
+ */
+@Service
+public class SupplierImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SupplierImportService.class);
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private record Row(long number, Supplier supplier) {
+    }
+
+    private final SupplierRepository supplierRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    @Value("${supplier.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public SupplierImportService(SupplierRepository supplierRepository, ObjectMapper objectMapper,
+                                 TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.supplierRepository = supplierRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ImportReport importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        try (MappingIterator<Map<String, String>> rows = csvMapper.readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader()).readValues(in)) {
+            long number = 0;
+            while (true) {
+                Map<String, String> values;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    number++;
+                    values = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    // The parser cannot resynchronise after a malformed line, so the rest of the file is skipped
+                    report.received();
+                    report.reject(number, "Malformed CSV, import stopped: " + e.getOriginalMessage());
+                    break;
+                }
+                // Empty cells mean "not set" rather than an empty string
+                Map<String, String> fields = new HashMap<>(values);
+                fields.replaceAll((column, value) -> value == null || value.isEmpty() ? null : value);
+                Supplier supplier;
+                try {
+                    supplier = objectMapper.convertValue(fields, Supplier.class);
+                } catch (IllegalArgumentException e) {
+                    report.received();
+                    report.reject(number, e.getCause() instanceof JsonMappingException mapping ? mapping.getOriginalMessage() : e.getMessage());
+                    continue;
+                }
+                add(chunk, new Row(number, supplier), report);
+            }
+        }
+        importChunk(chunk, report);
+        logCompletion(report, start);
+        return report;
+    }
+
+    public ImportReport importNdjson(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            long number = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                number++;
+                Supplier supplier;
+                try {
+                    supplier = objectMapper.readValue(line, Supplier.class);
+                } catch (JsonProcessingException e) {
+                    report.received();
+                    report.reject(number, e.getOriginalMessage());
+                    continue;
+                }
+                add(chunk, new Row(number, supplier), report);
+            }
+        }
+        importChunk(chunk, report);
+        logCompletion(report, start);
+        return report;
+    }
+
+    private void add(List<Row> chunk, Row row, ImportReport report) {
+        report.received();
+        String error = validate(row.supplier());
+        if (error != null) {
+            report.reject(row.number(), error);
+            return;
+        }
+        chunk.add(row);
+        if (chunk.size() >= chunkSize) {
+            importChunk(chunk, report);
+            chunk.clear();
+        }
+    }
+
+    private static String validate(Supplier supplier) {
+        if (supplier.getName() == null || supplier.getName().isBlank()) {
+            return "Name is required";
+        }
+        for (String value : new String[]{supplier.getName(), supplier.getContactPerson(), supplier.getPhone(), supplier.getEmail()}) {
+            if (value != null && value.length() > MAX_TEXT_LENGTH) {
+                return "Values cannot be longer than " + MAX_TEXT_LENGTH + " characters";
+            }
+        }
+        return null;
+    }
+
+    private void importChunk(List<Row> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Row> duplicates = new ArrayList<>();
+        List<Supplier> accepted = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<String> takenNames = new HashSet<>(supplierRepository.findExistingNames(
+                        chunk.stream().map(row -> row.supplier().getName()).distinct().toList()));
+                List<String> emails = chunk.stream().map(row -> row.supplier().getEmail()).filter(Objects::nonNull).distinct().toList();
+                Set<String> takenEmails = new HashSet<>(emails.isEmpty() ? List.of() : supplierRepository.findExistingEmails(emails));
+                for (Row row : chunk) {
+                    String email = row.supplier().getEmail();
+                    if (takenNames.contains(row.supplier().getName()) || (email != null && takenEmails.contains(email))) {
+                        duplicates.add(row);
+                        continue;
+                    }
+                    takenNames.add(row.supplier().getName());
+                    if (email != null) {
+                        takenEmails.add(email);
+                    }
+                    accepted.add(row.supplier());
+                }
+                supplierRepository.insertAll(accepted);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A supplier with one of these names or emails was created after the check; the whole chunk was rolled back
+            chunk.forEach(row -> report.reject(row.number(), "Not imported because of a concurrent change, retry the row"));
+            return;
+        }
+        duplicates.forEach(row -> report.reject(row.number(), "Supplier with name " + row.supplier().getName()
+                + " or email " + row.supplier().getEmail() + " already exists"));
+        report.imported(accepted.size());
+        meterRegistry.counter("supplier.changes.published", "type", "created").increment(accepted.size());
+    }
+
+    private static void logCompletion(ImportReport report, long start) {
+        log.info("Imported {} of {} suppliers in {} ms", report.getImported(), report.getReceived(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
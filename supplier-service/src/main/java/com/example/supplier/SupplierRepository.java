@@ -1,10 +1,31 @@
 package com.example.supplier;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
-public interface SupplierRepository extends JpaRepository<Supplier, Long> {
-    boolean existsByEmail(String email);
-    boolean existsByName(String name);
+public interface SupplierRepository extends JpaRepository<Supplier, Long>, SupplierImportRepository {
+    List<Supplier> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT s.name FROM Supplier s WHERE s.name IN :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    @Query("SELECT s.email FROM Supplier s WHERE s.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Must be consumed inside a transaction so the driver can use a server-side cursor
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Supplier> streamAllByOrderByIdAsc();
 }
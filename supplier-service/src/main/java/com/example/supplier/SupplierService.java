@@ -1,50 +1,142 @@
 package com.example.supplier;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class SupplierService {
 
+    static final int MAX_CHANGES_PER_PAGE = 1000;
+    static final int MAX_IDS_PER_LOOKUP = 1000;
+
     private final SupplierRepository supplierRepository;
+    private final SupplierChangeEventRepository changeEventRepository;
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${supplier.changes.retention:P7D}")
+    private Duration changeRetention;
 
     @Autowired
-    public SupplierService(SupplierRepository supplierRepository) {
+    public SupplierService(SupplierRepository supplierRepository, SupplierChangeEventRepository changeEventRepository,
+                           EntityManager entityManager, MeterRegistry meterRegistry) {
         this.supplierRepository = supplierRepository;
+        this.changeEventRepository = changeEventRepository;
+        this.entityManager = entityManager;
+        this.meterRegistry = meterRegistry;
     }
 
+    // Duplicate emails and names are rejected by unique indexes rather than by lookups before the insert
+    @Transactional
     public Supplier createSupplier(Supplier supplier) {
-        if (supplierRepository.existsByEmail(supplier.getEmail())) {
-            throw new IllegalArgumentException("Supplier with email " + supplier.getEmail() + " already exists");
-        }
-        if (supplierRepository.existsByName(supplier.getName())) {
-            throw new IllegalArgumentException("Supplier with name " + supplier.getName() + " already exists");
+        Supplier saved;
+        try {
+            saved = supplierRepository.saveAndFlush(supplier);
+        } catch (DataIntegrityViolationException e) {
+            if (violates(e, "uk_suppliers_email")) {
+                throw new IllegalArgumentException("Supplier with email " + supplier.getEmail() + " already exists");
+            }
+            if (violates(e, "uk_suppliers_name")) {
+                throw new IllegalArgumentException("Supplier with name " + supplier.getName() + " already exists");
+            }
+            throw e;
         }
-        return supplierRepository.save(supplier);
+        publishChange(saved.getId(), SupplierChangeEvent.ChangeType.CREATED);
+        return saved;
     }
 
-    public List<Supplier> getAllSuppliers() {
-        return supplierRepository.findAll();
+    // One keyset page: up to pageSize suppliers with an id greater than 'after', in id order
+    public List<Supplier> getSuppliers(Long after, int pageSize) {
+        return supplierRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize));
+    }
+
+    /**
+     * Streams every supplier, in id order, to the consumer over a forward-only cursor.
+     * Each supplier is detached once consumed, so memory use does not grow with the number of suppliers.
+     */
+    @Transactional(readOnly = true)
+    public void exportSuppliers(Consumer<Supplier> consumer) {
+        try (Stream<Supplier> suppliers = supplierRepository.streamAllByOrderByIdAsc()) {
+            suppliers.forEach(supplier -> {
+                consumer.accept(supplier);
+                entityManager.detach(supplier);
+            });
+        }
     }
 
     public Optional<Supplier> getSupplierById(Long id) {
         return supplierRepository.findById(id);
     }
 
+    // Bulk lookup in a single query; ids that do not exist are simply absent from the result
+    public List<Supplier> getSuppliersByIds(Collection<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.size() > MAX_IDS_PER_LOOKUP) {
+            throw new IllegalArgumentException("At most " + MAX_IDS_PER_LOOKUP + " supplier ids are allowed per lookup");
+        }
+        meterRegistry.summary("supplier.lookup.ids", "operation", "get_many").record(distinctIds.size());
+        return supplierRepository.findAllById(distinctIds);
+    }
+
+    @Transactional
     public Supplier updateSupplier(Long id, Supplier supplierDetails) {
         return supplierRepository.findById(id).map(supplier -> {
             supplier.setName(supplierDetails.getName());
             supplier.setContactPerson(supplierDetails.getContactPerson());
             supplier.setPhone(supplierDetails.getPhone());
             supplier.setEmail(supplierDetails.getEmail());
-            return supplierRepository.save(supplier);
+            Supplier saved = supplierRepository.save(supplier);
+            publishChange(id, SupplierChangeEvent.ChangeType.UPDATED);
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Supplier not found with id " + id));
     }
 
+    @Transactional
     public void deleteSupplier(Long id) {
         supplierRepository.deleteById(id);
+        publishChange(id, SupplierChangeEvent.ChangeType.DELETED);
+    }
+
+    // Change feed for consumers that cache suppliers: events with an id greater than 'after', oldest first
+    public List<SupplierChangeEvent> getChangesAfter(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_CHANGES_PER_PAGE);
+        return changeEventRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize));
+    }
+
+    @Scheduled(fixedDelayString = "${supplier.changes.purge-interval:PT1H}")
+    @Transactional
+    public void purgeChangeEvents() {
+        int purged = changeEventRepository.deleteCreatedBefore(Instant.now().minus(changeRetention));
+        meterRegistry.counter("supplier.changes.purged").increment(purged);
+    }
+
+    // Every supplier write lands in the change feed in the same transaction; the counter shows the write mix
+    private void publishChange(Long supplierId, SupplierChangeEvent.ChangeType type) {
+        changeEventRepository.save(new SupplierChangeEvent(supplierId, type));
+        meterRegistry.counter("supplier.changes.published", "type", type.name().toLowerCase()).increment();
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+        // Databases differ in how they report the name (H2 qualifies and upper-cases it), so match loosely
+        return e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase().contains(constraint);
     }
 }
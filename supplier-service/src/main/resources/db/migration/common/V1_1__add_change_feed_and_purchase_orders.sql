@@ -0,0 +1,30 @@
+-- Change feed and purchase orders added before the schema was managed by Flyway. Databases baselined at V1 have
+-- neither.
+
+CREATE TABLE supplier_change_events (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    supplier_id bigint,
+    change_type varchar(255) CHECK (change_type IN ('CREATED', 'UPDATED', 'DELETED')),
+    created_at timestamp(6) with time zone
+);
+
+CREATE TABLE purchase_orders (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    supplier_id bigint NOT NULL,
+    reference varchar(255) NOT NULL UNIQUE,
+    status varchar(255) CHECK (status IN ('OPEN', 'RECEIVED')),
+    created_at timestamp(6) with time zone,
+    received_at timestamp(6) with time zone
+);
+
+CREATE TABLE purchase_order_lines (
+    purchase_order_id bigint NOT NULL REFERENCES purchase_orders (id),
+    product_id bigint NOT NULL,
+    quantity integer NOT NULL
+);
+
+CREATE TABLE purchase_order_receipts (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    purchase_order_id bigint NOT NULL REFERENCES purchase_orders (id),
+    created_at timestamp(6) with time zone
+);
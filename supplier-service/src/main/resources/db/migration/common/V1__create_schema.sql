@@ -0,0 +1,9 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Existing databases are baselined at this version.
+
+CREATE TABLE suppliers (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(255),
+    contact_person varchar(255),
+    phone varchar(255),
+    email varchar(255)
+);
@@ -0,0 +1,8 @@
+-- Backs the uniqueness that createSupplier used to check with separate queries, and indexes the change feed purge.
+-- Fails if existing rows already break a rule; clean those up before upgrading.
+
+CREATE UNIQUE INDEX uk_suppliers_name ON suppliers (name);
+CREATE UNIQUE INDEX uk_suppliers_email ON suppliers (email);
+CREATE INDEX idx_supplier_change_events_created_at ON supplier_change_events (created_at);
+CREATE INDEX idx_purchase_orders_supplier_id ON purchase_orders (supplier_id);
+CREATE INDEX idx_purchase_order_lines_purchase_order_id ON purchase_order_lines (purchase_order_id);
@@ -0,0 +1,2 @@
+-- Row version: Hibernate checks it on entity updates, and the ETags of GET /api/suppliers/{id} are derived from it
+ALTER TABLE suppliers ADD COLUMN version bigint DEFAULT 0 NOT NULL;
@@ -0,0 +1,3 @@
+-- Start the sequence past the ids the identity column already handed out. Hibernate's pooled optimizer treats a
+-- value as the top of its block, so the first block must end ID_ALLOCATION_SIZE above the current maximum.
+SELECT setval('suppliers_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM suppliers), false);
@@ -0,0 +1,63 @@
+package com.example.supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class IdempotencyStoreTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void databaseStore_shouldReplayCompletedRequestsToEveryInstance() {
+        IdempotencyStore instanceA = store(Duration.ofMinutes(1));
+        IdempotencyStore instanceB = store(Duration.ofMinutes(1));
+
+        assertEquals(IdempotencyStore.Status.CLAIMED, instanceA.claim("key-1", "fp").status());
+        assertEquals(IdempotencyStore.Status.IN_PROGRESS, instanceB.claim("key-1", "fp").status());
+        assertEquals(IdempotencyStore.Status.MISMATCH, instanceB.claim("key-1", "other").status());
+
+        instanceA.complete("key-1", "fp", 200, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+        IdempotencyStore.Claim replay = instanceB.claim("key-1", "fp");
+        assertEquals(IdempotencyStore.Status.REPLAY, replay.status());
+        assertEquals(200, replay.entry().statusCode());
+        assertEquals("application/json", replay.entry().contentType());
+        assertEquals("{\"id\":1}", new String(replay.entry().body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void databaseStore_shouldFreeReleasedAndAbandonedClaims() {
+        IdempotencyStore store = store(Duration.ofMinutes(1));
+        store.claim("key-2", "fp");
+        store.release("key-2");
+        assertEquals(IdempotencyStore.Status.CLAIMED, store.claim("key-2", "fp").status());
+
+        // A claim whose instance died before completing it lapses after the in-progress timeout
+        IdempotencyStore crashed = store(Duration.ZERO);
+        crashed.claim("key-3", "fp");
+        assertEquals(IdempotencyStore.Status.CLAIMED, store.claim("key-3", "fp").status());
+        assertEquals(IdempotencyStore.Status.IN_PROGRESS, store.claim("key-3", "fp").status());
+
+        crashed.claim("key-4", "fp");
+        crashed.purgeExpired();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM idempotency_keys WHERE idempotency_key = 'key-4'", Integer.class));
+    }
+
+    private IdempotencyStore store(Duration inProgressTimeout) {
+        return new IdempotencyStore("database", Duration.ofHours(1), inProgressTimeout, 100, jdbcTemplate);
+    }
+}
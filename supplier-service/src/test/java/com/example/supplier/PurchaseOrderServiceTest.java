@@ -0,0 +1,77 @@
+package com.example.supplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({PurchaseOrderService.class, SimpleMeterRegistry.class})
+class PurchaseOrderServiceTest {
+
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Test
+    void createPurchaseOrder_shouldReturnTheExistingOrder_whenTheReferenceIsReused() {
+        Long supplierId = supplier("Retry Supplier");
+
+        PurchaseOrder first = purchaseOrderService.createPurchaseOrder(order(supplierId, "po-retry", new PurchaseOrderLine(1L, 10)));
+        PurchaseOrder retried = purchaseOrderService.createPurchaseOrder(order(supplierId, "po-retry", new PurchaseOrderLine(1L, 10)));
+
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(PurchaseOrder.Status.OPEN, retried.getStatus());
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseOrderService.createPurchaseOrder(order(supplier("Other Supplier"), "po-retry", new PurchaseOrderLine(1L, 10))));
+    }
+
+    @Test
+    void createPurchaseOrder_shouldRejectInvalidOrders() {
+        Long supplierId = supplier("Strict Supplier");
+
+        assertThrows(IllegalArgumentException.class, () -> purchaseOrderService.createPurchaseOrder(order(-1L, "po-no-supplier", new PurchaseOrderLine(1L, 1))));
+        assertThrows(IllegalArgumentException.class, () -> purchaseOrderService.createPurchaseOrder(order(supplierId, "po-empty")));
+        assertThrows(IllegalArgumentException.class, () -> purchaseOrderService.createPurchaseOrder(order(supplierId, "po-zero", new PurchaseOrderLine(1L, 0))));
+        assertThrows(IllegalArgumentException.class, () -> purchaseOrderService.createPurchaseOrder(order(supplierId, " ", new PurchaseOrderLine(1L, 1))));
+    }
+
+    @Test
+    void receivePurchaseOrder_shouldPublishOneReceiptToTheFeed() {
+        Long supplierId = supplier("Receiving Supplier");
+        PurchaseOrder order = purchaseOrderService.createPurchaseOrder(order(supplierId, "po-receive",
+                new PurchaseOrderLine(1L, 10), new PurchaseOrderLine(2L, 5)));
+        Long lastReceiptId = purchaseOrderService.getReceiptsAfter(0L, 1000).stream()
+                .mapToLong(PurchaseOrderReceipt::getId).max().orElse(0L);
+
+        PurchaseOrder received = purchaseOrderService.receivePurchaseOrder(order.getId());
+
+        assertEquals(PurchaseOrder.Status.RECEIVED, received.getStatus());
+        assertNotNull(received.getReceivedAt());
+        List<PurchaseOrderReceipt> receipts = purchaseOrderService.getReceiptsAfter(lastReceiptId, 100);
+        assertEquals(1, receipts.size());
+        assertEquals("po-receive", receipts.get(0).getPurchaseOrder().getReference());
+        assertEquals(2, receipts.get(0).getPurchaseOrder().getLines().size());
+        assertThrows(IllegalArgumentException.class, () -> purchaseOrderService.receivePurchaseOrder(order.getId()));
+        assertThrows(RuntimeException.class, () -> purchaseOrderService.receivePurchaseOrder(-1L));
+    }
+
+    private Long supplier(String name) {
+        return supplierRepository.save(new Supplier(name, "Sam Poe", "555-0100", name.replace(' ', '.') + "@example.com")).getId();
+    }
+
+    private static PurchaseOrder order(Long supplierId, String reference, PurchaseOrderLine... lines) {
+        return new PurchaseOrder(supplierId, reference, List.of(lines));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.supplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({SupplierService.class, SimpleMeterRegistry.class})
+class SupplierChangeFeedTest {
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Test
+    void supplierChanges_shouldBeReadableInOrderFromTheChangeFeed() {
+        Supplier supplier = supplierService.createSupplier(new Supplier("Feed Supplier", "Jane Roe", "555-0101", "jane@feed.com"));
+        supplierService.updateSupplier(supplier.getId(), new Supplier("Feed Supplier", "Jane Roe", "555-0199", "jane@feed.com"));
+        supplierService.deleteSupplier(supplier.getId());
+
+        List<SupplierChangeEvent> firstPage = supplierService.getChangesAfter(0L, 2);
+        List<SupplierChangeEvent> secondPage = supplierService.getChangesAfter(firstPage.get(1).getId(), 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(SupplierChangeEvent.ChangeType.CREATED, firstPage.get(0).getChangeType());
+        assertEquals(SupplierChangeEvent.ChangeType.UPDATED, firstPage.get(1).getChangeType());
+        assertEquals(1, secondPage.size());
+        assertEquals(SupplierChangeEvent.ChangeType.DELETED, secondPage.get(0).getChangeType());
+        assertEquals(supplier.getId(), secondPage.get(0).getSupplierId());
+    }
+}
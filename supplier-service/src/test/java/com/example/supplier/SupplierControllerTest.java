@@ -0,0 +1,65 @@
+package com.example.supplier;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SupplierControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getSupplierById_shouldBeCacheableByCdns_andAnswerAMatchingIfNoneMatchWith304() throws Exception {
+        Supplier supplier = supplierService.createSupplier(new Supplier("Conditional Supplier", "Jane Roe", "555-0103", "conditional@supplier.com"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        String etag = mockMvc.perform(get("/api/suppliers/{id}", supplier.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + supplier.getVersion() + "\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+
+        mockMvc.perform(get("/api/suppliers/{id}", supplier.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andExpect(content().string(""));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateSupplier_shouldReturnConflict_whenRenamingToATakenName() throws Exception {
+        supplierService.createSupplier(new Supplier("Conflict Taken Supplier", "Jane Roe", "555-0101", "conflict-taken@supplier.com"));
+        Supplier renamed = supplierService.createSupplier(new Supplier("Conflict Renamed Supplier", "John Roe", "555-0102", "conflict-renamed@supplier.com"));
+
+        mockMvc.perform(put("/api/suppliers/{id}", renamed.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Conflict Taken Supplier\",\"contactPerson\":\"John Roe\",\"phone\":\"555-0102\",\"email\":\"conflict-renamed@supplier.com\"}"))
+                .andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.supplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "supplier.import.chunk-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({SupplierImportService.class, SupplierService.class, SimpleMeterRegistry.class})
+class SupplierImportServiceTest {
+
+    @Autowired
+    private SupplierImportService supplierImportService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Test
+    void importCsv_shouldImportValidRowsAndReportTheRest() throws Exception {
+        supplierService.createSupplier(new Supplier("Existing Parts", "Ann Lee", "555-0100", "sales@existing.com"));
+        String csv = """
+                name,contactPerson,phone,email
+                Acme Parts,"Roe, Jane",555-0101,sales@acme.com
+                Existing Parts,,,
+                Other Parts,,,sales@acme.com
+                ,,,nobody@parts.com
+                Bolt Parts,,,
+                """;
+
+        ImportReport report = supplierImportService.importCsv(stream(csv));
+
+        assertEquals(5, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(2L, 3L, 4L), report.getErrors().stream().map(ImportReport.RowError::row).sorted().toList());
+        Supplier acme = supplierRepository.findAll().stream().filter(s -> "Acme Parts".equals(s.getName())).findFirst().orElseThrow();
+        assertEquals("Roe, Jane", acme.getContactPerson());
+        assertEquals(3, supplierService.getChangesAfter(0L, 100).stream()
+                .filter(change -> change.getChangeType() == SupplierChangeEvent.ChangeType.CREATED).count());
+    }
+
+    @Test
+    void importNdjson_shouldReportMalformedLinesAndKeepGoing() throws Exception {
+        String ndjson = """
+                {"name":"Json Parts","email":"sales@json.com"}
+                {"name":
+                {"name":"Json Tools"}
+                """;
+
+        ImportReport report = supplierImportService.importNdjson(stream(ndjson));
+
+        assertEquals(3, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(2L, report.getErrors().get(0).row());
+        Supplier created = supplierService.createSupplier(new Supplier("Json Created", null, null, "new@json.com"));
+        assertEquals(3, supplierRepository.findAll().stream()
+                .filter(s -> s.getName().startsWith("Json ")).map(Supplier::getId).distinct().count());
+        assertNotNull(created.getId());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.supplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the schema built by the Flyway migrations
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({SupplierService.class, SimpleMeterRegistry.class})
+class SupplierSchemaTest {
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Test
+    void createSupplier_shouldRejectDuplicateEmail() {
+        supplierService.createSupplier(new Supplier("First Supplier", "Jane Roe", "555-0101", "sales@dup.com"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                supplierService.createSupplier(new Supplier("Second Supplier", "John Roe", "555-0102", "sales@dup.com")));
+        assertEquals("Supplier with email sales@dup.com already exists", e.getMessage());
+    }
+
+    @Test
+    void createSupplier_shouldRejectDuplicateName() {
+        supplierService.createSupplier(new Supplier("Same Name", "Jane Roe", "555-0101", "one@name.com"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                supplierService.createSupplier(new Supplier("Same Name", "John Roe", "555-0102", "two@name.com")));
+        assertEquals("Supplier with name Same Name already exists", e.getMessage());
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.supplier;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -16,6 +25,15 @@ class SupplierServiceTest {
     @Mock
     private SupplierRepository supplierRepository;
 
+    @Mock
+    private SupplierChangeEventRepository changeEventRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private SupplierService supplierService;
 
@@ -27,13 +45,16 @@ class SupplierServiceTest {
     @Test
     void createSupplier_shouldReturnSavedSupplier() {
         Supplier supplier = new Supplier("Test Supplier", "John Doe", "123-456-7890", "john.doe@test.com");
-        when(supplierRepository.save(supplier)).thenReturn(supplier);
+        when(supplierRepository.saveAndFlush(supplier)).thenReturn(supplier);
 
         Supplier createdSupplier = supplierService.createSupplier(supplier);
 
         assertNotNull(createdSupplier);
         assertEquals("Test Supplier", createdSupplier.getName());
-        verify(supplierRepository, times(1)).save(supplier);
+        verify(supplierRepository, times(1)).saveAndFlush(supplier);
+        verify(changeEventRepository, times(1)).save(argThat(event ->
+                event.getChangeType() == SupplierChangeEvent.ChangeType.CREATED));
+        assertEquals(1.0, meterRegistry.get("supplier.changes.published").tag("type", "created").counter().count());
     }
 
     @Test
@@ -59,6 +80,45 @@ class SupplierServiceTest {
         verify(supplierRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getSuppliers_shouldReadOneKeysetPage() {
+        Supplier supplier = new Supplier("Test Supplier", "John Doe", "123-456-7890", "john.doe@test.com");
+        supplier.setId(11L);
+        when(supplierRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(1))).thenReturn(List.of(supplier));
+
+        List<Supplier> page = supplierService.getSuppliers(10L, 1);
+
+        assertEquals(List.of(supplier), page);
+        verify(supplierRepository, never()).findAll();
+    }
+
+    @Test
+    void exportSuppliers_shouldDetachEachSupplierOnceConsumed() {
+        Supplier first = new Supplier("First", "John Doe", "1", "first@test.com");
+        Supplier second = new Supplier("Second", "Jane Doe", "2", "second@test.com");
+        when(supplierRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+        List<Supplier> exported = new ArrayList<>();
+
+        supplierService.exportSuppliers(exported::add);
+
+        assertEquals(List.of(first, second), exported);
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+    }
+
+    @Test
+    void getSuppliersByIds_shouldUseSingleQueryForDistinctIds() {
+        Supplier supplier = new Supplier("Test Supplier", "John Doe", "123-456-7890", "john.doe@test.com");
+        supplier.setId(1L);
+        when(supplierRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(supplier));
+
+        List<Supplier> suppliers = supplierService.getSuppliersByIds(List.of(1L, 2L, 1L));
+
+        assertEquals(List.of(supplier), suppliers);
+        verify(supplierRepository, times(1)).findAllById(Set.of(1L, 2L));
+        verify(supplierRepository, never()).findById(anyLong());
+    }
+
     @Test
     void updateSupplier_shouldReturnUpdatedSupplier_whenFound() {
         Supplier existingSupplier = new Supplier("Old Name", "Old Contact", "111", "old@test.com");
@@ -75,6 +135,8 @@ class SupplierServiceTest {
         assertEquals("New Contact", result.getContactPerson());
         verify(supplierRepository, times(1)).findById(1L);
         verify(supplierRepository, times(1)).save(any(Supplier.class));
+        verify(changeEventRepository, times(1)).save(argThat(event ->
+                event.getSupplierId().equals(1L) && event.getChangeType() == SupplierChangeEvent.ChangeType.UPDATED));
     }
 
     @Test
@@ -89,6 +151,7 @@ class SupplierServiceTest {
         assertEquals("Supplier not found with id 1", exception.getMessage());
         verify(supplierRepository, times(1)).findById(1L);
         verify(supplierRepository, never()).save(any(Supplier.class));
+        verify(changeEventRepository, never()).save(any(SupplierChangeEvent.class));
     }
 
     @Test
@@ -98,5 +161,7 @@ class SupplierServiceTest {
         supplierService.deleteSupplier(1L);
 
         verify(supplierRepository, times(1)).deleteById(1L);
+        verify(changeEventRepository, times(1)).save(argThat(event ->
+                event.getSupplierId().equals(1L) && event.getChangeType() == SupplierChangeEvent.ChangeType.DELETED));
     }
 }